@@ -0,0 +1,40 @@
+package jpabook.jpa.shop.benchmark;
+
+import jpabook.jpa.shop.Application;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * 벤치마크용 Spring 컨텍스트
+ * - 웹 서버 없이 embedded(in-memory) H2 로 띄운다
+ * - SQL 로그, p6spy 로그는 측정값을 왜곡하므로 끈다
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String dbName, String... extraArgs) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        String[] args = {
+                "--spring.datasource.url=jdbc:h2:mem:" + dbName + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--decorator.datasource.p6spy.enable-logging=false",
+                "--logging.level.root=warn",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--logging.level.org.hibernate.type=warn",
+                "--logging.level.jpabook=warn"
+        };
+        String[] merged = new String[args.length + extraArgs.length];
+        System.arraycopy(args, 0, merged, 0, args.length);
+        System.arraycopy(extraArgs, 0, merged, args.length, extraArgs.length);
+
+        return new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(merged);
+    }
+}
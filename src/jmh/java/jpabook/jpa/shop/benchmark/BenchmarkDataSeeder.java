@@ -0,0 +1,82 @@
+package jpabook.jpa.shop.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 벤치마크용 주문 데이터 입력
+ * - EntityManager.persist 를 건건이 호출하면 수십만 건 입력에 너무 오래 걸리므로 JDBC batch insert 사용
+ * - InitDB 가 넣는 데이터와 id 가 겹치지 않도록 ID_BASE 부터 채번
+ * - 같은 seed 면 항상 같은 데이터가 만들어진다
+ */
+public final class BenchmarkDataSeeder {
+
+    private static final long ID_BASE = 10_000_000L;
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbc;
+    private final SplittableRandom random;
+
+    public BenchmarkDataSeeder(JdbcTemplate jdbc, long seed) {
+        this.jdbc = jdbc;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * @param orderCount       : [int] 주문 수
+     * @param maxItemsPerOrder : [int] 주문 당 주문상품 수 (1 ~ max)
+     */
+    public void seedOrders(int orderCount, int maxItemsPerOrder) {
+        int memberCount = Math.max(1, orderCount / 10);
+        int itemCount = 1000;
+
+        List<Object[]> members = new ArrayList<>();
+        for (int i = 0; i < memberCount; i++) {
+            members.add(new Object[]{ID_BASE + i, "bench-member-" + i, "서울", "street-" + i, "12345"});
+        }
+        batch("insert into member (member_id, username, city, street, zipcode) values (?, ?, ?, ?, ?)", members);
+
+        List<Object[]> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new Object[]{"B", ID_BASE + i, "bench-book-" + i, 10000 + i, Integer.MAX_VALUE / 2});
+        }
+        batch("insert into item (dtype, item_id, name, price, stock_quantity) values (?, ?, ?, ?, ?)", items);
+
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        List<Object[]> deliveries = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> orders = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> orderItems = new ArrayList<>(BATCH_SIZE * maxItemsPerOrder);
+        long orderItemId = ID_BASE;
+
+        for (int i = 0; i < orderCount; i++) {
+            long id = ID_BASE + i;
+            deliveries.add(new Object[]{id, "서울", "street", "12345", "READY"});
+            orders.add(new Object[]{id, Timestamp.valueOf(start.plusSeconds(i)), "ORDER", id, ID_BASE + random.nextInt(memberCount)});
+
+            int lines = 1 + random.nextInt(maxItemsPerOrder);
+            for (int l = 0; l < lines; l++) {
+                orderItems.add(new Object[]{orderItemId++, 1 + random.nextInt(5), 10000, ID_BASE + random.nextInt(itemCount), id});
+            }
+
+            if (orders.size() == BATCH_SIZE || i == orderCount - 1) {
+                batch("insert into delivery (delivery_id, city, street, zipcode, status) values (?, ?, ?, ?, ?)", deliveries);
+                batch("insert into orders (order_id, order_date, status, delivery_id, member_id) values (?, ?, ?, ?, ?)", orders);
+                batch("insert into order_item (order_item_id, count, order_price, item_id, order_id) values (?, ?, ?, ?, ?)", orderItems);
+                deliveries.clear();
+                orders.clear();
+                orderItems.clear();
+            }
+        }
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbc.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + BATCH_SIZE)));
+        }
+    }
+}
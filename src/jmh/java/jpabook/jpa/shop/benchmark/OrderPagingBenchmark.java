@@ -0,0 +1,83 @@
+package jpabook.jpa.shop.benchmark;
+
+import jpabook.jpa.shop.domain.Order;
+import jpabook.jpa.shop.repository.OrderCursor;
+import jpabook.jpa.shop.repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * offset 페이징(v3.1) vs keyset 페이징(v3.2) 응답 시간 비교
+ * - offset 은 페이지가 깊어질수록 앞 row를 읽고 버리는 비용이 선형으로 증가
+ * - keyset 은 페이지 깊이와 상관없이 일정해야 한다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderPagingBenchmark {
+
+    private static final int ORDER_COUNT = 200_000;
+
+    @Param({"1", "100", "1000", "5000"})
+    private int page;
+
+    @Param({"20"})
+    private int limit;
+
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+
+    private OrderCursor idCursor;
+    private OrderCursor orderDateCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("paging");
+        new BenchmarkDataSeeder(context.getBean(JdbcTemplate.class), 1L).seedOrders(ORDER_COUNT, 1);
+        orderRepository = context.getBean(OrderRepository.class);
+
+        // page 번째 페이지 직전 row를 커서로 잡아둔다 (클라이언트가 앞 페이지들을 넘겨 온 상태)
+        idCursor = cursorAt(OrderCursor.Sort.ID, "select o from Order o order by o.id");
+        orderDateCursor = cursorAt(OrderCursor.Sort.ORDER_DATE, "select o from Order o order by o.orderDate, o.id");
+    }
+
+    private OrderCursor cursorAt(OrderCursor.Sort sort, String jpql) {
+        if (page <= 1) {
+            return OrderCursor.first(sort);
+        }
+        EntityManager em = context.getBean(EntityManager.class);
+        Order last = em.createQuery(jpql, Order.class)
+                .setFirstResult((page - 1) * limit - 1)
+                .setMaxResults(1)
+                .getSingleResult();
+        return OrderCursor.after(sort, last);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Order> offset() {
+        return orderRepository.findAllWithMemberDelivery((page - 1) * limit, limit);
+    }
+
+    @Benchmark
+    public List<Order> keysetById() {
+        return orderRepository.findAllWithMemberDelivery(idCursor, limit);
+    }
+
+    @Benchmark
+    public List<Order> keysetByOrderDate() {
+        return orderRepository.findAllWithMemberDelivery(orderDateCursor, limit);
+    }
+}
@@ -0,0 +1,109 @@
+package jpabook.jpa.shop.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpa.shop.api.OrderAPIController;
+import jpabook.jpa.shop.domain.Order;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 주문 조회 방식(v1 ~ v6) 비교
+ * - 컨트롤러 메서드를 그대로 호출 (Repository 조회 + DTO 변환), 결과를 JSON 으로 직렬화까지 해서 응답 1건의 비용을 잰다
+ * - 웹 서버가 없으므로 OSIV 대신 읽기 전용 트랜잭션 안에서 호출 (v2 의 지연 로딩이 동작하도록)
+ * - 처리량(Throughput), 지연 시간 분포(SampleTime), 할당량(gc 프로파일러, build.gradle 의 jmh.profilers) 을 함께 본다
+ *
+ * 실행 ex)
+ * ./gradlew jmh -PjmhIncludes=OrderReadBenchmark
+ * 데이터 크기는 -p 로 조절 (jmh 의 benchmarkParameters 또는 java -jar ... -p orderCount=100000,1000000 -p maxItemsPerOrder=1,20)
+ * - v1 ~ v3 는 최대 1000 / 100 건, v4 ~ v6 은 전체 주문을 읽는다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OrderReadBenchmark {
+
+    @Param({"1000"}) // 100000, 1000000
+    private int orderCount;
+
+    @Param({"1", "20"})
+    private int maxItemsPerOrder;
+
+    private ConfigurableApplicationContext context;
+    private OrderAPIController orderAPIController;
+    private ObjectMapper objectMapper;
+    private TransactionTemplate readOnlyTx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("orderRead");
+        new BenchmarkDataSeeder(context.getBean(JdbcTemplate.class), 1L).seedOrders(orderCount, maxItemsPerOrder);
+
+        orderAPIController = context.getBean(OrderAPIController.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        readOnlyTx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * v1 은 엔티티 양방향 연관관계 때문에 직렬화가 불가능(무한 순환)하므로 조회 + 지연 로딩 초기화까지만 잰다
+     */
+    @Benchmark
+    public List<Order> v1_entity() {
+        return readOnlyTx.execute(status -> orderAPIController.ordersV1());
+    }
+
+    @Benchmark
+    public byte[] v2_dtoLazyLoading() {
+        return toJson(() -> orderAPIController.ordersV2());
+    }
+
+    @Benchmark
+    public byte[] v3_fetchJoin() {
+        return toJson(() -> orderAPIController.ordersV3());
+    }
+
+    @Benchmark
+    public byte[] v3_1_batchFetchPaging() {
+        return toJson(() -> orderAPIController.ordersV3_page(0, 100));
+    }
+
+    @Benchmark
+    public byte[] v4_dtoQuery() {
+        return toJson(() -> orderAPIController.ordersV4());
+    }
+
+    @Benchmark
+    public byte[] v5_dtoQueryInClause() {
+        return toJson(() -> orderAPIController.ordersV5());
+    }
+
+    @Benchmark
+    public byte[] v6_flatQuery() {
+        return toJson(() -> orderAPIController.ordersV6());
+    }
+
+    private byte[] toJson(Supplier<Object> call) {
+        return readOnlyTx.execute(status -> {
+            try {
+                return objectMapper.writeValueAsBytes(call.get());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
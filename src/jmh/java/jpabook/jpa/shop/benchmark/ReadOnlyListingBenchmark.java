@@ -0,0 +1,100 @@
+package jpabook.jpa.shop.benchmark;
+
+import jpabook.jpa.shop.domain.Member;
+import jpabook.jpa.shop.domain.Order;
+import jpabook.jpa.shop.repository.OrderFetchPlan;
+import jpabook.jpa.shop.repository.OrderRepository;
+import jpabook.jpa.shop.repository.OrderSearch;
+import jpabook.jpa.shop.service.MemberService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 목록 조회를 read-only 로 읽을 때(HINT_READONLY) 아끼는 CPU / 힙 비교
+ * - *_managed : 힌트 없이 읽는다 -> 엔티티마다 dirty checking 용 스냅샷(loaded state)을 만들고, 커밋 때 전부 비교한다
+ * - *_readOnly : MemberService.findAll / OrderRepository.findAll(OrderSearch, Pageable, SUMMARY, ..) 그대로 (힌트로 read-only)
+ * - 둘 다 읽기 / 쓰기 트랜잭션 안에서 호출한다
+ *     - @Transactional(readOnly = true) 만으로도 Spring 이 세션을 read-only + FlushMode.MANUAL 로 바꾸지만,
+ *       바깥 쓰기 트랜잭션에 합류하면 readOnly 속성은 무시되므로 힌트가 없으면 스냅샷이 생긴다
+ * - 2차 캐시 / 쿼리 캐시는 끈다 (캐시 hit 이 아니라 엔티티 로딩 자체를 잰다)
+ * - 연산당 할당량은 gc.alloc.rate.norm (build.gradle 의 jmh.profilers), 시간은 AverageTime
+ *
+ * 실행 ex)
+ * ./gradlew jmh -PjmhIncludes=ReadOnlyListingBenchmark
+ * 데이터 크기는 -p 로 조절 (java -jar ... -p orderCount=100000,1000000 -p pageSize=100,1000)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReadOnlyListingBenchmark {
+
+    @Param({"100000"}) // 회원은 주문 수의 1/10 (BenchmarkDataSeeder)
+    private int orderCount;
+
+    @Param({"1000"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager em;
+    private MemberService memberService;
+    private OrderRepository orderRepository;
+    private TransactionTemplate tx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("readOnlyListing",
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                "--spring.jpa.properties.hibernate.generate_statistics=false");
+        new BenchmarkDataSeeder(context.getBean(JdbcTemplate.class), 1L).seedOrders(orderCount, 1);
+
+        em = context.getBean(EntityManager.class); // 트랜잭션에 묶인 shared EntityManager
+        memberService = context.getBean(MemberService.class);
+        orderRepository = context.getBean(OrderRepository.class);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> members_managed() {
+        return tx.execute(status -> em.createQuery("select m from Member m", Member.class).getResultList());
+    }
+
+    @Benchmark
+    public List<Member> members_readOnly() {
+        return tx.execute(status -> memberService.findAll());
+    }
+
+    @Benchmark
+    public List<Order> orderPage_managed() {
+        return tx.execute(status -> em.createQuery(
+                "select o from Order o" +
+                        " join fetch o.member m" +
+                        " join fetch o.delivery d" +
+                        " order by o.id desc", Order.class)
+                .setMaxResults(pageSize)
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<Order> orderPage_readOnly() {
+        return tx.execute(status -> orderRepository
+                .findAll(new OrderSearch(), PageRequest.of(0, pageSize), OrderFetchPlan.SUMMARY, () -> 0L)
+                .getContent());
+    }
+}
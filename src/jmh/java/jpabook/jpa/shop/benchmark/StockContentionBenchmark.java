@@ -0,0 +1,101 @@
+package jpabook.jpa.shop.benchmark;
+
+import jpabook.jpa.shop.domain.Address;
+import jpabook.jpa.shop.domain.Member;
+import jpabook.jpa.shop.domain.item.Book;
+import jpabook.jpa.shop.service.OrderService;
+import jpabook.jpa.shop.stock.StockLedger;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 인기 상품 1개에 주문이 몰릴 때 OrderService.order 처리량
+ * - ledger=false: 모든 스레드가 같은 item row 의 재고를 조건부 update 로 차감한다 (row lock 대기)
+ * - ledger=true : 메모리 재고 원장(StockLedger)에서 차감하고 DB 에는 모아서 반영
+ * - 측정이 끝나면 (처음 재고 - 남은 재고) == 주문 수량 합계 인지 확인, 다르면 lost update 가 있었다는 뜻이므로 실패시킨다
+ *
+ * 실행 ex) ./gradlew jmh -PjmhIncludes=StockContentionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class StockContentionBenchmark {
+
+    private static final int INITIAL_STOCK = Integer.MAX_VALUE / 2;
+    private static final int MEMBER_COUNT = 1000;
+
+    @Param({"false", "true"})
+    private boolean ledger;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private JdbcTemplate jdbc;
+    private List<Long> memberIds;
+    private Long itemId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("stock",
+                "--shop.stock.ledger.enabled=" + ledger,
+                "--shop.stock.ledger.journal-dir=" + System.getProperty("java.io.tmpdir") + "/stock-journal-bench");
+        orderService = context.getBean(OrderService.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate tx = context.getBean(TransactionTemplate.class);
+        // Order.setMember 가 member.orders 컬렉션을 초기화하므로, 회원 1명에 주문을 몰면 회원 주문 목록 로딩 비용이 측정을 덮는다
+        memberIds = tx.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < MEMBER_COUNT; i++) {
+                Member member = new Member();
+                member.setUsername("bench-" + i);
+                member.setAddress(new Address("서울", "1", "12345"));
+                em.persist(member);
+                ids.add(member.getId());
+            }
+            return ids;
+        });
+        itemId = tx.execute(status -> {
+            Book book = new Book();
+            book.setName("hot item");
+            book.setPrice(10000);
+            book.setStockQuantity(INITIAL_STOCK);
+            em.persist(book);
+            return book.getId();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        try {
+            if (ledger) {
+                context.getBean(StockLedger.class).flush(); // 남은 변경분 반영 후 비교
+            }
+            long restStock = jdbc.queryForObject("select stock_quantity from item where item_id = ?", Long.class, itemId);
+            long ordered = jdbc.queryForObject("select coalesce(sum(count), 0) from order_item where item_id = ?", Long.class, itemId);
+            if (INITIAL_STOCK - restStock != ordered) {
+                throw new IllegalStateException("lost update: 차감된 재고 " + (INITIAL_STOCK - restStock) + ", 주문 수량 " + ordered);
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public Long order() {
+        Long memberId = memberIds.get(ThreadLocalRandom.current().nextInt(MEMBER_COUNT));
+        return orderService.order(memberId, itemId, 1);
+    }
+}
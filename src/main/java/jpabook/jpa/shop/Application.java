@@ -14,10 +14,11 @@ public class Application {
 
 	// 1. 지연 로딩 무시
 	// 2. 강제 Lazy Loading 수행 옵션
-//	@Bean
-//	Hibernate5Module hibernate5Module() {
-//		Hibernate5Module hibernate5Module = new Hibernate5Module();
-////		hibernate5Module.configure(Hibernate5Module.Feature.FORCE_LAZY_LOADING, true); // 사용 지양 해야 함
-//		return hibernate5Module;
-//	}
+	// open-in-view: false 이후 엔티티를 그대로 반환하는 v1 API 는 트랜잭션 밖에서 직렬화되므로, 초기화 안 된 연관관계는 null 로 쓴다
+	@Bean
+	Hibernate5Module hibernate5Module() {
+		Hibernate5Module hibernate5Module = new Hibernate5Module();
+//		hibernate5Module.configure(Hibernate5Module.Feature.FORCE_LAZY_LOADING, true); // 사용 지양 해야 함
+		return hibernate5Module;
+	}
 }
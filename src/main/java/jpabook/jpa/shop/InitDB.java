@@ -3,6 +3,7 @@ package jpabook.jpa.shop;
 import jpabook.jpa.shop.domain.*;
 import jpabook.jpa.shop.domain.item.Book;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
@@ -11,11 +12,13 @@ import javax.transaction.Transactional;
 
 /**
  * 2명의 유저가 2개의 주문을 등록 한다 가정하고 샘플 데이터 입력
+ * - shop.seed.enabled=true 면 동작하지 않는다 (BulkDataSeeder 가 대량 데이터 입력)
  *
  * @since 2022-04-27 Wed 01:01
  * @author ymkim
  */
 @Component
+@ConditionalOnProperty(name = "shop.seed.enabled", havingValue = "false", matchIfMissing = true)
 @RequiredArgsConstructor
 public class InitDB {
 
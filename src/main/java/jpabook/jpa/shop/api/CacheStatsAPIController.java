@@ -0,0 +1,41 @@
+package jpabook.jpa.shop.api;
+
+import jpabook.jpa.shop.catalog.ItemCatalog;
+import jpabook.jpa.shop.monitor.CacheStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 2차 캐시 통계 (관리자용)
+ * ex) 상품 / 회원 region hit ratio, 주문이 몰릴 때 재고 변경으로 evict 되는 정도
+ * - 상품 카탈로그(ItemCatalog) 메모리 사용량도 같이
+ */
+@RestController
+@RequiredArgsConstructor
+public class CacheStatsAPIController {
+
+    private final CacheStats cacheStats;
+    private final ItemCatalog itemCatalog;
+
+    @GetMapping("/admin/cache-stats")
+    public List<CacheStats.RegionSnapshot> cacheStats() {
+        return cacheStats.snapshot();
+    }
+
+    @DeleteMapping("/admin/cache-stats")
+    public void resetCacheStats() {
+        cacheStats.reset();
+    }
+
+    /**
+     * 상품 카탈로그(ItemCatalog) 메모리 사용량 (배열 크기로 계산한 추정치)
+     */
+    @GetMapping("/admin/catalog-stats")
+    public ItemCatalog.Footprint catalogStats() {
+        return itemCatalog.snapshot().footprint();
+    }
+}
@@ -0,0 +1,168 @@
+package jpabook.jpa.shop.api;
+
+import jpabook.jpa.shop.category.CategoryTree;
+import jpabook.jpa.shop.domain.item.Item;
+import jpabook.jpa.shop.service.CategoryService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequiredArgsConstructor
+public class CategoryAPIController {
+
+    private final CategoryService categoryService;
+    private final CategoryTree categoryTree;
+
+    /**
+     * 카테고리 트리 전체 (DB 조회 없이 스냅샷으로)
+     */
+    @GetMapping("/api/v1/categories")
+    public List<CategoryNodeDto> categories() {
+        CategoryTree.Snapshot snapshot = categoryTree.snapshot();
+        return snapshot.roots().stream()
+                .map(root -> new CategoryNodeDto(root, snapshot))
+                .collect(Collectors.toList());
+    }
+
+    @PostMapping("/api/v1/categories")
+    public CreateCategoryResponse saveCategory(@RequestBody @Valid CreateCategoryRequest request) {
+        try {
+            return new CreateCategoryResponse(categoryService.create(request.getName(), request.getParentId()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @PutMapping("/api/v1/categories/{id}/parent/{parentId}")
+    public void moveCategory(@PathVariable("id") Long id, @PathVariable("parentId") Long parentId) {
+        try {
+            categoryService.move(id, parentId);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @PostMapping("/api/v1/categories/{id}/items/{itemId}")
+    public void addItem(@PathVariable("id") Long id, @PathVariable("itemId") Long itemId) {
+        try {
+            categoryService.addItem(id, itemId);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 카테고리와 그 아래 모든 카테고리의 상품 (페이지, 상품 id 순)
+     *
+     * @param pageable : page, size (기본 20)
+     */
+    @GetMapping("/api/v1/categories/{id}/items")
+    public CategoryItemPageResult categoryItems(@PathVariable("id") Long id,
+                                                @PageableDefault(size = 20) Pageable pageable) {
+        Page<Item> page;
+        try {
+            page = categoryService.findItems(id, pageable);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        }
+        return toPageResult(page);
+    }
+
+    /**
+     * 여러 카테고리 조건으로 상품 거르기 (하위 카테고리 포함, 페이지, 상품 id 순)
+     * ex) /api/v1/categories/items?all=1,2&any=3,4&none=5
+     *
+     * @param all      : 모두 속해야 하는 카테고리
+     * @param any      : 하나 이상 속해야 하는 카테고리
+     * @param none     : 속하면 안 되는 카테고리
+     * @param pageable : page, size (기본 20)
+     */
+    @GetMapping("/api/v1/categories/items")
+    public CategoryItemPageResult filterItems(@RequestParam(value = "all", defaultValue = "") List<Long> all,
+                                              @RequestParam(value = "any", defaultValue = "") List<Long> any,
+                                              @RequestParam(value = "none", defaultValue = "") List<Long> none,
+                                              @PageableDefault(size = 20) Pageable pageable) {
+        Page<Item> page;
+        try {
+            page = categoryService.filterItems(all, any, none, pageable);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return toPageResult(page);
+    }
+
+    private CategoryItemPageResult toPageResult(Page<Item> page) {
+        List<CategoryItemDto> data = page.getContent().stream()
+                .map(CategoryItemDto::new)
+                .collect(Collectors.toList());
+        return new CategoryItemPageResult(data, page.getNumber(), page.getSize(), page.getTotalElements(), page.getTotalPages());
+    }
+
+    @Data
+    static class CreateCategoryRequest {
+        @NotEmpty
+        private String name;
+        private Long parentId;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateCategoryResponse {
+        private Long id;
+    }
+
+    @Getter
+    static class CategoryNodeDto {
+        private Long id;
+        private String name;
+        private String path;
+        private List<CategoryNodeDto> children;
+
+        CategoryNodeDto(CategoryTree.Node node, CategoryTree.Snapshot snapshot) {
+            id = node.getId();
+            name = node.getName();
+            path = node.getPath();
+            children = snapshot.children(node.getId()).stream()
+                    .map(child -> new CategoryNodeDto(child, snapshot))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Getter
+    static class CategoryItemDto {
+        private Long id;
+        private String name;
+        private int price;
+        private int stockQuantity;
+
+        CategoryItemDto(Item item) {
+            id = item.getId();
+            name = item.getName();
+            price = item.getPrice();
+            stockQuantity = item.getStockQuantity();
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class CategoryItemPageResult {
+        private List<CategoryItemDto> data;
+        private int page;
+        private int size;
+        private long total;
+        private int totalPages;
+    }
+}
@@ -0,0 +1,82 @@
+package jpabook.jpa.shop.api;
+
+import jpabook.jpa.shop.repository.item.query.AlbumDto;
+import jpabook.jpa.shop.repository.item.query.BookDto;
+import jpabook.jpa.shop.repository.item.query.ItemQueryRepository;
+import jpabook.jpa.shop.repository.item.query.MovieDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * 상품 하위 타입별 목록 / 단건 조회 (타입 컬럼만, ItemQueryRepository)
+ * - 목록은 상품 id 순 페이지 (page, size 기본 20)
+ * - 단건은 id 가 다른 타입이면 404
+ */
+@RestController
+@RequiredArgsConstructor
+public class ItemAPIController {
+
+    private final ItemQueryRepository itemQueryRepository;
+
+    @GetMapping("/api/v1/items/books")
+    public ItemPageResult<BookDto> books(@PageableDefault(size = 20) Pageable pageable) {
+        return ItemPageResult.of(itemQueryRepository.findBooks(pageable));
+    }
+
+    @GetMapping("/api/v1/items/albums")
+    public ItemPageResult<AlbumDto> albums(@PageableDefault(size = 20) Pageable pageable) {
+        return ItemPageResult.of(itemQueryRepository.findAlbums(pageable));
+    }
+
+    @GetMapping("/api/v1/items/movies")
+    public ItemPageResult<MovieDto> movies(@PageableDefault(size = 20) Pageable pageable) {
+        return ItemPageResult.of(itemQueryRepository.findMovies(pageable));
+    }
+
+    @GetMapping("/api/v1/items/books/{id}")
+    public BookDto book(@PathVariable("id") Long id) {
+        return found(itemQueryRepository.findBook(id), id);
+    }
+
+    @GetMapping("/api/v1/items/albums/{id}")
+    public AlbumDto album(@PathVariable("id") Long id) {
+        return found(itemQueryRepository.findAlbum(id), id);
+    }
+
+    @GetMapping("/api/v1/items/movies/{id}")
+    public MovieDto movie(@PathVariable("id") Long id) {
+        return found(itemQueryRepository.findMovie(id), id);
+    }
+
+    private static <T> T found(T item, Long id) {
+        if (item == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "상품이 없거나 다른 타입입니다. id=" + id);
+        }
+        return item;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class ItemPageResult<T> {
+        private List<T> data;
+        private int page;
+        private int size;
+        private long total;
+        private int totalPages;
+
+        static <T> ItemPageResult<T> of(Page<T> page) {
+            return new ItemPageResult<>(page.getContent(), page.getNumber(), page.getSize(), page.getTotalElements(), page.getTotalPages());
+        }
+    }
+}
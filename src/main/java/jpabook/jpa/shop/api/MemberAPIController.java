@@ -1,16 +1,23 @@
 package jpabook.jpa.shop.api;
 
 import jpabook.jpa.shop.domain.Member;
+import jpabook.jpa.shop.dto.response.MemberImportResultDTO;
+import jpabook.jpa.shop.service.MemberImportService;
 import jpabook.jpa.shop.service.MemberService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotEmpty;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -20,6 +27,7 @@ public class MemberAPIController {
     private final Logger log = LoggerFactory.getLogger(MemberAPIController.class);
 
     private final MemberService memberService;
+    private final MemberImportService memberImportService;
 
     @GetMapping("/api/v1/members")
     public List<Member> membersV1() {
@@ -78,6 +86,27 @@ public class MemberAPIController {
         return new CreateMemberResponse(id);
     }
 
+    /**
+     * 회원 일괄 등록 (제휴사 회원 파일)
+     * - 본문을 스트림으로 읽으므로 수만 건 파일도 그대로 올린다
+     * - 파일 안 중복, 이미 가입된 이름, 빈 이름은 거절하고 나머지만 등록한다
+     *
+     * ex) curl -X POST -H 'Content-Type: text/csv' --data-binary @members.csv /api/v2/members/import
+     */
+    @PostMapping(value = "/api/v2/members/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public MemberImportResultDTO importMembersJson(InputStream body) throws IOException {
+        try {
+            return memberImportService.importJson(body);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @PostMapping(value = "/api/v2/members/import", consumes = "text/csv")
+    public MemberImportResultDTO importMembersCsv(InputStream body) throws IOException {
+        return memberImportService.importCsv(body);
+    }
+
     @PutMapping("/api/v2/members/{id}")
     public UpdateMemberResponse updateMemberV2(
             @PathVariable("id") Long id,
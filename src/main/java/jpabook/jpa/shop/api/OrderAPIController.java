@@ -4,19 +4,38 @@ import jpabook.jpa.shop.domain.Address;
 import jpabook.jpa.shop.domain.Order;
 import jpabook.jpa.shop.domain.OrderItem;
 import jpabook.jpa.shop.domain.OrderStatus;
+import jpabook.jpa.shop.dto.request.OrderRequestDTO;
+import jpabook.jpa.shop.dto.response.OrderResultDTO;
+import jpabook.jpa.shop.repository.OrderCursor;
+import jpabook.jpa.shop.repository.OrderFetchPlan;
 import jpabook.jpa.shop.repository.OrderRepository;
 import jpabook.jpa.shop.repository.OrderSearch;
-import jpabook.jpa.shop.repository.order.query.OrderFlatDto;
 import jpabook.jpa.shop.repository.order.query.OrderQueryDto;
 import jpabook.jpa.shop.repository.order.query.OrderQueryRepository;
+import jpabook.jpa.shop.service.OrderExportService;
+import jpabook.jpa.shop.service.OrderService;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.util.CollectionUtils;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -27,21 +46,27 @@ import java.util.stream.Collectors;
 public class OrderAPIController {
 //    private final Logger log = LoggerFactory.getLogger(OrderAPIController.class);
 
+    private static final int MAX_CURSOR_LIMIT = 1000;
+
     private final OrderRepository orderRepository;
     private final OrderQueryRepository orderQueryRepository;
+    private final OrderExportService orderExportService;
+    private final OrderService orderService;
 
     /**
      * 엔티티를 직접 조회
      * - Jackson에 의해 Json으로 변환 되는 순간에 데이터가 꼬인다
      * - 결론은 Entity 반환 하면 안된다
+     * - open-in-view: false 이후로 컨트롤러에서는 지연 로딩이 안 되므로, 아래 루프가 쓰는 연관관계는 fetch plan 으로 미리 읽는다
+     *     - 양방향 반대편(Member.orders 등)은 @JsonIgnore, 나머지 초기화 안 된 연관관계는 Hibernate5Module 이 null 로 쓴다
      */
     @GetMapping("/api/v1/orders")
     public List<Order> ordersV1() {
-        List<Order> orders = orderRepository.findAllByString(new OrderSearch());
+        List<Order> orders = orderRepository.findAllByString(new OrderSearch(), OrderFetchPlan.WITH_ITEMS_AND_PRODUCTS);
         log.info("order = {}", orders.toString());
 
         // 지연 로딩으로 인해 .getUsername | .getAddress를 하게 되면 Hibernate5에 의해 데이터 출력
-        // 현재는 Hibernate5 옵션 꺼 두었음
+        // 현재는 Hibernate5Module 을 등록해 두었음 (FORCE_LAZY_LOADING 은 끔)
         for (Order order : orders) {
             order.getMember().getUsername();
             order.getDelivery().getAddress();
@@ -76,7 +101,8 @@ public class OrderAPIController {
 //                .map(o -> new OrderDto(o))
 //                .collect(Collectors.toList());
 
-        List<Order> orderList = orderRepository.findAllByString(new OrderSearch());
+        // open-in-view: false -> DTO 변환 중 지연 로딩(N + 1) 대신 fetch plan 으로 미리 읽는다 (주문 1번 + 주문상품 256건마다 1번)
+        List<Order> orderList = orderRepository.findAllByString(new OrderSearch(), OrderFetchPlan.WITH_ITEMS_AND_PRODUCTS);
         log.info("orderList = {}, size = {}", orderList.toString(), orderList.size());
 
         List<?> result = null;
@@ -116,12 +142,12 @@ public class OrderAPIController {
     public List<OrderDto> ordersV3_page(
             @RequestParam(value = "offset", defaultValue = "0") int offset,
             @RequestParam(value = "limit", defaultValue = "100") int limit) {
-        List<Order> orders = orderRepository.findAllWithMemberDelivery(offset, limit);
+        List<Order> orders = orderRepository.findAllWithMemberDelivery(offset, limit, OrderFetchPlan.WITH_ITEMS_AND_PRODUCTS);
         log.info("orders = {}", orders.toString());
 
         // ====> 1 : N fetch join
         // Order + Member + Delivery => query(1)
-        // Loop -> OrderItem // Item => query(2)
+        // OrderItem + Item => query(2), open-in-view: false 이므로 batch fetch 대신 fetch plan 으로 조회 안에서 채운다
 
         List<OrderDto> order = orders.stream()
                 .map(o -> new OrderDto(o))
@@ -138,7 +164,7 @@ public class OrderAPIController {
             @RequestParam(value = "offset", defaultValue = "0") int offset,
             @RequestParam(value = "limit", defaultValue = "100") int limit) {
 
-        List<Order> orderList = orderRepository.findAllWithMemberDelivery(offset, limit); // Order + Member + Delivery = pagination
+        List<Order> orderList = orderRepository.findAllWithMemberDelivery(offset, limit, OrderFetchPlan.WITH_ITEMS_AND_PRODUCTS); // Order + Member + Delivery = pagination
         log.info("orderList = {}", orderList);
 
         // query -> 1
@@ -148,6 +174,72 @@ public class OrderAPIController {
                 .collect(Collectors.toList()); // query -> 2
     }
 
+    /**
+     * 컬렉션 타입 -> keyset(seek) pagination
+     * - v3.1 처럼 offset을 쓰지 않고, 응답의 next 토큰을 다음 요청의 cursor로 넘긴다
+     * - 페이지 깊이와 상관없이 인덱스로 바로 찾아가므로 응답 시간이 일정하다
+     *
+     * @param cursor : 이전 응답의 next (첫 페이지는 생략)
+     * @param sort   : 첫 페이지 정렬 기준 [id, orderDate], 이후에는 cursor에 담긴 정렬을 따른다
+     * @param limit  : 1 ~ 1000
+     * @return
+     */
+    @GetMapping("/api/v3.2/orders")
+    public OrderCursorResult<List<OrderDto>> ordersV3_cursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "sort", defaultValue = "id") String sort,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+
+        if (limit < 1 || limit > MAX_CURSOR_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit 은 1 ~ " + MAX_CURSOR_LIMIT + " 사이여야 합니다.");
+        }
+        OrderCursor current = toCursor(cursor, sort);
+
+        // limit + 1 건을 조회해서 다음 페이지 존재 여부를 판단 (count 쿼리 불필요)
+        List<Order> orders = orderRepository.findAllWithMemberDelivery(current, limit + 1, OrderFetchPlan.WITH_ITEMS_AND_PRODUCTS);
+        boolean hasNext = orders.size() > limit;
+        if (hasNext) {
+            orders = orders.subList(0, limit);
+        }
+
+        List<OrderDto> data = orders.stream()
+                .map(o -> new OrderDto(o))
+                .collect(Collectors.toList());
+
+        String next = hasNext ? OrderCursor.after(current.getSort(), orders.get(orders.size() - 1)).encode() : null;
+        return new OrderCursorResult<>(data, next);
+    }
+
+    /**
+     * 주문 검색 (페이지 + 전체 건수)
+     * - 화면(/orders)과 같은 검색, 최근 주문부터
+     * - total 은 fetch join 없는 count 쿼리로 따로 센다, 조건이 없으면 shop.order.search-cache.unfiltered-total-ttl-ms 동안 재사용 (근사치)
+     *
+     * @param orderSearch : memberName, orderStatus
+     * @param pageable    : page, size (기본 20)
+     * @return
+     */
+    @GetMapping("/api/v1/orders/search")
+    public OrderPageResult<List<OrderDto>> searchOrders(OrderSearch orderSearch,
+                                                        @PageableDefault(size = 20) Pageable pageable) {
+        Page<Order> page = orderService.searchOrder(orderSearch, pageable, OrderFetchPlan.WITH_ITEMS_AND_PRODUCTS);
+        List<OrderDto> data = page.getContent().stream()
+                .map(o -> new OrderDto(o))
+                .collect(Collectors.toList());
+        return new OrderPageResult<>(data, page.getNumber(), page.getSize(), page.getTotalElements(), page.getTotalPages());
+    }
+
+    private OrderCursor toCursor(String cursor, String sort) {
+        try {
+            if (StringUtils.hasText(cursor)) {
+                return OrderCursor.decode(cursor);
+            }
+            return OrderCursor.first("orderDate".equals(sort) ? OrderCursor.Sort.ORDER_DATE : OrderCursor.Sort.ID);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
     @GetMapping("/api/v4/orders")
     public List<OrderQueryDto> ordersV4() {
         return orderQueryRepository.findOrderQueryDtos();
@@ -158,17 +250,81 @@ public class OrderAPIController {
         return orderQueryRepository.findAllByDto_optimization();
     }
 
+    /**
+     * 쿼리 1번(flat 조인)으로 조회하고, 서버에서 v5와 같은 주문 > 주문상품 구조로 다시 묶어서 반환
+     * - 주문 id 순으로 정렬된 row 를 한 번만 훑는다 (groupingBy 사용 안 함)
+     * - 1 : N 조인으로 늘어난 row 를 그대로 전송하지 않으므로 응답 크기도 v5 와 같다
+     */
     @GetMapping("/api/v6/orders")
-    public List<OrderFlatDto> ordersV6() {
-        List<OrderFlatDto> flats = orderQueryRepository.findAllByDto_flat();
-
-//        return flats.stream()
-//                    .collect(Collectors.groupingBy(o -> new OrderQueryDto(o.get, o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
-//                            mapping(o -> new OrderItemQueryDto(o.getOrderId(), o.getItemName(), o.getOrderPrice(), o.getCount()), toList()))).entrySet().stream()
-//                    .map(e -> new OrderQueryDto(e.getKey().getOrderId(), e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(),s
-//                            e.getKey().getAddress(), e.getValue()))
-//                    .collect(toList());
-        return flats;
+    public List<OrderQueryDto> ordersV6() {
+        return orderQueryRepository.findAllByDto_flatNested();
+    }
+
+    /**
+     * 주문 flat 데이터 내보내기 (NDJSON || CSV)
+     * - v6 처럼 List 로 모아서 직렬화하지 않고, DB 커서에서 읽는 대로 응답에 쓴다
+     * - 주문 수가 늘어도 힙 사용량은 일정, JDBC fetch size 는 shop.export.fetch-size 로 조절
+     *
+     * @param format : [ndjson, csv]
+     * @return
+     */
+    @GetMapping("/api/v6/orders/export")
+    public ResponseEntity<StreamingResponseBody> ordersV6_export(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+
+        if ("csv".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders.csv\"")
+                    .body(out -> orderExportService.exportFlat(OrderExportService.Format.CSV, out));
+        }
+        return ResponseEntity.ok()
+                .contentType(new MediaType("application", "x-ndjson", StandardCharsets.UTF_8))
+                .body(out -> orderExportService.exportFlat(OrderExportService.Format.NDJSON, out));
+    }
+
+    /**
+     * 일괄 주문 (상위 시스템에서 수백 건씩 몰아서 보내는 경우)
+     * - 줄 단위로 성공 / 실패를 돌려준다, 일부 실패해도 나머지는 주문된다
+     */
+    @PostMapping("/api/v1/orders/batch")
+    public OrderBatchResponse orderBatch(@RequestBody @Valid OrderBatchRequest request) {
+        List<OrderResultDTO> results = orderService.orderBatch(request.getOrders());
+        long ordered = results.stream().filter(r -> r.getStatus() == OrderResultDTO.Status.ORDERED).count();
+        return new OrderBatchResponse((int) ordered, results.size() - (int) ordered, results);
+    }
+
+    @Getter
+    @Setter
+    static class OrderBatchRequest {
+        @NotEmpty
+        @Size(max = 1000)
+        private List<OrderRequestDTO> orders;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class OrderBatchResponse {
+        private int ordered;
+        private int rejected;
+        private List<OrderResultDTO> results;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class OrderCursorResult<T> {
+        private T data;
+        private String next; // 마지막 페이지면 null
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class OrderPageResult<T> {
+        private T data;
+        private int page;
+        private int size;
+        private long total;
+        private int totalPages;
     }
 
     @Getter
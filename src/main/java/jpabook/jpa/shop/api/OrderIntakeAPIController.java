@@ -0,0 +1,75 @@
+package jpabook.jpa.shop.api;
+
+import jpabook.jpa.shop.dto.request.OrderRequestDTO;
+import jpabook.jpa.shop.dto.response.OrderResultDTO;
+import jpabook.jpa.shop.exception.OrderQueueFullException;
+import jpabook.jpa.shop.intake.OrderIntake;
+import jpabook.jpa.shop.intake.OrderTicket;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 비동기 주문 접수 API (shop.order.intake.enabled=true 일 때만 등록)
+ * - POST 는 접수표만 바로 돌려주고(202), 결과는 GET 으로 조회
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shop.order.intake.enabled", havingValue = "true")
+public class OrderIntakeAPIController {
+
+    private final OrderIntake orderIntake;
+
+    @PostMapping("/api/v1/orders/async")
+    public ResponseEntity<TicketResponse> submit(@RequestBody OrderRequestDTO request) {
+        try {
+            OrderTicket ticket = orderIntake.submit(request);
+            return ResponseEntity.accepted().body(TicketResponse.of(ticket));
+        } catch (OrderQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+    }
+
+    @GetMapping("/api/v1/orders/async/{ticketId}")
+    public TicketResponse ticket(@PathVariable("ticketId") String ticketId) {
+        OrderTicket ticket = orderIntake.findTicket(ticketId);
+        if (ticket == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "접수 내역이 없습니다. ticketId = " + ticketId);
+        }
+        return TicketResponse.of(ticket);
+    }
+
+    @GetMapping("/admin/order-intake")
+    public OrderIntake.IntakeStats stats() {
+        return orderIntake.stats();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class TicketResponse {
+        private String ticketId;
+        private OrderTicket.Status status;
+        private Long orderId;
+        private String reason;
+
+        static TicketResponse of(OrderTicket ticket) {
+            OrderTicket.Status status = ticket.getStatus();
+            if (status == OrderTicket.Status.QUEUED) {
+                return new TicketResponse(ticket.getId(), status, null, null);
+            }
+            if (status == OrderTicket.Status.FAILED) {
+                return new TicketResponse(ticket.getId(), status, null, "주문 처리 중 오류가 발생했습니다.");
+            }
+            OrderResultDTO result = ticket.getResult().join();
+            return new TicketResponse(ticket.getId(), status, result.getOrderId(), result.getReason());
+        }
+    }
+}
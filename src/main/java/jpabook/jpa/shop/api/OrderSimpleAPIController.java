@@ -3,6 +3,7 @@ package jpabook.jpa.shop.api;
 import jpabook.jpa.shop.domain.Address;
 import jpabook.jpa.shop.domain.Order;
 import jpabook.jpa.shop.domain.OrderStatus;
+import jpabook.jpa.shop.repository.OrderFetchPlan;
 import jpabook.jpa.shop.repository.OrderRepository;
 import jpabook.jpa.shop.repository.OrderSearch;
 import jpabook.jpa.shop.repository.order.simplequery.OrderSimpleQueryDto;
@@ -34,9 +35,10 @@ public class OrderSimpleAPIController {
     private final OrderSimpleQueryRepository orderSimpleQueryRepository;
 
     // 엔티티 반환
+    // - Order.getTotalPrice 도 직렬화되므로 주문상품까지 읽는다 (상품은 초기화 안 된 채로 null, Hibernate5Module)
     @GetMapping("/api/v1/simple-orders")
     public List<Order> ordersV1() {
-        List<Order> orders = orderRepository.findAllByString(new OrderSearch());
+        List<Order> orders = orderRepository.findAllByString(new OrderSearch(), OrderFetchPlan.WITH_ITEMS);
         for (Order order : orders) {
             order.getMember().getUsername();
             order.getDelivery().getAddress();
@@ -55,7 +57,8 @@ public class OrderSimpleAPIController {
         // 첫 번째 쿼리의 결과로 N 번 만큼 쿼리가 추가적으로 실행 되는 경우를 -> N + 1 상황
         // ex) 1 + 회원 N + 배송 N
         // ex) 1 + 회원 2 + 배송 2 ==> 5
-        List<Order> orders = orderRepository.findAllByString(new OrderSearch());
+        // open-in-view: false 이후로는 컨트롤러에서 지연 로딩이 안 되므로 SUMMARY(회원 + 배송) plan 으로 쿼리 1번에 읽는다
+        List<Order> orders = orderRepository.findAllByString(new OrderSearch(), OrderFetchPlan.SUMMARY);
         log.debug("orders = {}", orders.toString());
 
         // 주문 결과가 2개, Loop가 2번 돈다
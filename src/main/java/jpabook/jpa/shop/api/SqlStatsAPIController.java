@@ -0,0 +1,30 @@
+package jpabook.jpa.shop.api;
+
+import jpabook.jpa.shop.monitor.SqlStatementStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 엔드포인트별 SQL 실행 통계 (관리자용)
+ * ex) OrderSimpleAPIController.orderV2(N + 1) vs orderV3(fetch join) 비교
+ */
+@RestController
+@RequiredArgsConstructor
+public class SqlStatsAPIController {
+
+    private final SqlStatementStats sqlStatementStats;
+
+    @GetMapping("/admin/sql-stats")
+    public List<SqlStatementStats.EndpointSnapshot> sqlStats() {
+        return sqlStatementStats.snapshot();
+    }
+
+    @DeleteMapping("/admin/sql-stats")
+    public void resetSqlStats() {
+        sqlStatementStats.reset();
+    }
+}
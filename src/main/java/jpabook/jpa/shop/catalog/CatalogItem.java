@@ -0,0 +1,16 @@
+package jpabook.jpa.shop.catalog;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 상품 목록 화면 한 줄 (ItemCatalog 스냅샷에서 만든다)
+ */
+@Getter
+@AllArgsConstructor
+public class CatalogItem {
+    private long id;
+    private String name;
+    private int price;
+    private int stockQuantity;
+}
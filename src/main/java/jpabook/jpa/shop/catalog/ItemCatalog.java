@@ -0,0 +1,373 @@
+package jpabook.jpa.shop.catalog;
+
+import jpabook.jpa.shop.repository.InClauseChunks;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 상품 목록 / 가격 / 재고 조회용 카탈로그 (메모리, 열 단위 배열, 불변 스냅샷)
+ *
+ * 부연 설명
+ * - /items, /order 화면은 id, 이름, 가격, 재고만 쓰는데 ItemRepository.findAll 은 상품 엔티티를 전부 올린다
+ * - 상품 id 순으로 long[] id, int[] 가격, int[] 재고, 이름은 char[] 하나에 이어 붙이고 시작 위치(int[])만 들고 있다
+ *     - 상품마다 객체를 만들지 않으므로 상품 1만 개 기준 수백 KB (GET /admin/catalog-stats)
+ * - 바뀐 상품은 트랜잭션이 끝난 뒤 markChanged 로 id 만 모아 두고, 다음에 읽을 때 그 상품 row 만 다시 읽어서 새 스냅샷으로 교체
+ *     - 커밋된 값만 읽도록 호출한 쪽 트랜잭션 밖에서(다른 커넥션) 읽는다
+ * - JDBC 로 직접 바꾸는 경우(seed 등)와 다른 서버에서 바뀐 상품은 reload-interval-ms 마다 전체를 다시 읽어서 맞춘다
+ * - 재고 원장(StockLedger)을 쓰면 DB 에 반영된 재고 기준이다 (flush-interval-ms 만큼 늦을 수 있다)
+ * - 화면 표시용이다 (늦게 반영될 수 있으므로 주문 금액은 DB 의 가격으로 계산한다)
+ */
+@Slf4j
+@Component
+public class ItemCatalog {
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate outsideTransaction;
+
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public ItemCatalog(JdbcTemplate jdbc, PlatformTransactionManager transactionManager) {
+        this.jdbc = jdbc;
+        this.outsideTransaction = new TransactionTemplate(transactionManager);
+        this.outsideTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${shop.catalog.reload-interval-ms:600000}",
+               initialDelayString = "${shop.catalog.reload-interval-ms:600000}")
+    public synchronized void reload() {
+        long start = System.currentTimeMillis();
+        changed.clear(); // 전체를 새로 읽으므로 그 전에 바뀐 상품도 반영된다
+        List<Row> rows = outsideTransaction.execute(status -> jdbc.query(
+                "select item_id, name, price, stock_quantity from item order by item_id", Row.MAPPER));
+        snapshot = Snapshot.of(rows);
+        log.info("상품 카탈로그 생성: {} 개, {} bytes ({} ms)",
+                snapshot.size(), snapshot.footprint().getBytes(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 바뀐 상품이 있으면 그 상품만 다시 읽어서 반영한 스냅샷
+     */
+    public Snapshot snapshot() {
+        if (!changed.isEmpty()) {
+            applyChanges();
+        }
+        return snapshot;
+    }
+
+    /**
+     * 상품 추가 / 수정 / 재고 변경 후 호출
+     * - 트랜잭션 안이면 끝난 뒤(커밋 / 롤백 모두) 다시 읽도록 표시한다
+     */
+    public void markChanged(Long itemId) {
+        if (itemId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            changed.add(itemId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                changed.add(itemId);
+            }
+        });
+    }
+
+    // reload 와 같은 모니터: 교체 순서가 뒤섞이지 않도록
+    private synchronized void applyChanges() {
+        if (changed.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(changed);
+        changed.removeAll(ids); // 읽는 도중에 다시 바뀐 상품은 다음 번에
+
+        List<Row> rows = new ArrayList<>(ids.size());
+        try {
+            outsideTransaction.executeWithoutResult(status -> {
+                for (List<Long> chunk : InClauseChunks.split(ids)) {
+                    rows.addAll(jdbc.query(
+                            "select item_id, name, price, stock_quantity from item" +
+                                    " where item_id in (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")",
+                            Row.MAPPER, chunk.toArray()));
+                }
+            });
+        } catch (RuntimeException e) {
+            changed.addAll(ids); // 다음에 다시
+            throw e;
+        }
+        snapshot = snapshot.patch(ids, rows);
+    }
+
+    @AllArgsConstructor
+    static class Row {
+
+        static final RowMapper<Row> MAPPER =
+                (rs, rowNum) -> new Row(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getInt(4));
+
+        final long id;
+        final String name;
+        final int price;
+        final int stockQuantity;
+    }
+
+    /**
+     * 상품 id 순 열 단위 배열 (불변)
+     */
+    public static class Snapshot {
+
+        static final Snapshot EMPTY = of(Collections.emptyList());
+
+        private final long[] ids;
+        private final int[] prices;
+        private final int[] stocks;
+        private final int[] nameStarts; // i 번째 이름 = names[nameStarts[i], nameStarts[i + 1]), null 은 빈 문자열
+        private final char[] names;
+
+        private Snapshot(long[] ids, int[] prices, int[] stocks, int[] nameStarts, char[] names) {
+            this.ids = ids;
+            this.prices = prices;
+            this.stocks = stocks;
+            this.nameStarts = nameStarts;
+            this.names = names;
+        }
+
+        /**
+         * @param rows : 상품 id 오름차순, 중복 없음
+         */
+        static Snapshot of(List<Row> rows) {
+            int size = rows.size();
+            long[] ids = new long[size];
+            int[] prices = new int[size];
+            int[] stocks = new int[size];
+            int[] nameStarts = new int[size + 1];
+            int nameLength = 0;
+            for (Row row : rows) {
+                nameLength += row.name == null ? 0 : row.name.length();
+            }
+            char[] names = new char[nameLength];
+
+            int offset = 0;
+            for (int i = 0; i < size; i++) {
+                Row row = rows.get(i);
+                ids[i] = row.id;
+                prices[i] = row.price;
+                stocks[i] = row.stockQuantity;
+                nameStarts[i] = offset;
+                if (row.name != null) {
+                    row.name.getChars(0, row.name.length(), names, offset);
+                    offset += row.name.length();
+                }
+            }
+            nameStarts[size] = offset;
+            return new Snapshot(ids, prices, stocks, nameStarts, names);
+        }
+
+        /**
+         * changedIds 를 rows 로 바꾼 새 스냅샷 (rows 에 없는 id 는 삭제된 상품)
+         * - 바뀌지 않은 구간은 배열끼리 그대로 복사한다 (다시 읽은 row 만 객체)
+         */
+        Snapshot patch(Collection<Long> changedIds, List<Row> rows) {
+            List<Row> sorted = new ArrayList<>(rows);
+            sorted.sort(Comparator.comparingLong(row -> row.id));
+            long[] changed = changedIds(changedIds, sorted);
+
+            // 새 배열 크기: 기존 - 다시 읽은 상품의 옛 값 + 다시 읽은 row
+            int size = ids.length + sorted.size();
+            int nameLength = names.length;
+            for (long id : changed) {
+                int index = indexOf(id);
+                if (index >= 0) {
+                    size--;
+                    nameLength -= nameStarts[index + 1] - nameStarts[index];
+                }
+            }
+            for (Row row : sorted) {
+                nameLength += row.name == null ? 0 : row.name.length();
+            }
+
+            Builder builder = new Builder(size, nameLength);
+            int from = 0;
+            int j = 0;
+            for (long id : changed) {
+                int index = Arrays.binarySearch(ids, from, ids.length, id);
+                int runEnd = index >= 0 ? index : -index - 1;
+                builder.copy(this, from, runEnd);
+                from = index >= 0 ? index + 1 : runEnd; // 옛 값은 버린다
+                if (j < sorted.size() && sorted.get(j).id == id) {
+                    builder.add(sorted.get(j++));
+                }
+            }
+            builder.copy(this, from, ids.length);
+            return builder.build();
+        }
+
+        // 바뀐 id + 다시 읽은 row 의 id, 오름차순 중복 없음
+        private static long[] changedIds(Collection<Long> changedIds, List<Row> sorted) {
+            long[] changed = new long[changedIds.size() + sorted.size()];
+            int count = 0;
+            for (Long id : changedIds) {
+                changed[count++] = id;
+            }
+            for (Row row : sorted) {
+                changed[count++] = row.id;
+            }
+            Arrays.sort(changed);
+            int unique = 0;
+            for (int i = 0; i < count; i++) {
+                if (unique == 0 || changed[unique - 1] != changed[i]) {
+                    changed[unique++] = changed[i];
+                }
+            }
+            return Arrays.copyOf(changed, unique);
+        }
+
+        public int size() {
+            return ids.length;
+        }
+
+        /**
+         * @return 없으면 음수
+         */
+        public int indexOf(long itemId) {
+            return Arrays.binarySearch(ids, itemId);
+        }
+
+        public long id(int index) {
+            return ids[index];
+        }
+
+        public String name(int index) {
+            return new String(names, nameStarts[index], nameStarts[index + 1] - nameStarts[index]);
+        }
+
+        public int price(int index) {
+            return prices[index];
+        }
+
+        public int stockQuantity(int index) {
+            return stocks[index];
+        }
+
+        /**
+         * 화면용 목록 (상품 id 순)
+         */
+        public List<CatalogItem> items() {
+            List<CatalogItem> items = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                items.add(new CatalogItem(ids[i], name(i), prices[i], stocks[i]));
+            }
+            return items;
+        }
+
+        /**
+         * @return 상품 id -> 가격 (카탈로그에 없는 상품은 빠진다)
+         */
+        public Map<Long, Integer> prices(Collection<Long> itemIds) {
+            Map<Long, Integer> result = new HashMap<>();
+            for (Long itemId : itemIds) {
+                int index = indexOf(itemId);
+                if (index >= 0) {
+                    result.put(itemId, prices[index]);
+                }
+            }
+            return result;
+        }
+
+        public Footprint footprint() {
+            long bytes = arrayBytes(ids.length, 8) + arrayBytes(prices.length, 4) + arrayBytes(stocks.length, 4)
+                    + arrayBytes(nameStarts.length, 4) + arrayBytes(names.length, 2);
+            return new Footprint(ids.length, names.length, bytes, ids.length == 0 ? 0 : (double) bytes / ids.length);
+        }
+
+        // 배열 헤더 16byte + 원소, 8byte 정렬 (64bit JVM, compressed oops 기준)
+        private static long arrayBytes(int length, int elementBytes) {
+            long raw = 16 + (long) length * elementBytes;
+            return (raw + 7) / 8 * 8;
+        }
+
+        /**
+         * 크기를 미리 알고 채우는 새 스냅샷 (patch 용)
+         */
+        private static class Builder {
+
+            private final long[] ids;
+            private final int[] prices;
+            private final int[] stocks;
+            private final int[] nameStarts;
+            private final char[] names;
+            private int size;
+            private int nameLength;
+
+            Builder(int size, int nameLength) {
+                this.ids = new long[size];
+                this.prices = new int[size];
+                this.stocks = new int[size];
+                this.nameStarts = new int[size + 1];
+                this.names = new char[nameLength];
+            }
+
+            // source 의 [from, to) 구간
+            void copy(Snapshot source, int from, int to) {
+                int count = to - from;
+                if (count <= 0) {
+                    return;
+                }
+                System.arraycopy(source.ids, from, ids, size, count);
+                System.arraycopy(source.prices, from, prices, size, count);
+                System.arraycopy(source.stocks, from, stocks, size, count);
+                int shift = nameLength - source.nameStarts[from];
+                for (int i = 0; i < count; i++) {
+                    nameStarts[size + i] = source.nameStarts[from + i] + shift;
+                }
+                int chars = source.nameStarts[to] - source.nameStarts[from];
+                System.arraycopy(source.names, source.nameStarts[from], names, nameLength, chars);
+                size += count;
+                nameLength += chars;
+            }
+
+            void add(Row row) {
+                ids[size] = row.id;
+                prices[size] = row.price;
+                stocks[size] = row.stockQuantity;
+                nameStarts[size] = nameLength;
+                if (row.name != null) {
+                    row.name.getChars(0, row.name.length(), names, nameLength);
+                    nameLength += row.name.length();
+                }
+                size++;
+            }
+
+            Snapshot build() {
+                nameStarts[size] = nameLength;
+                return new Snapshot(ids, prices, stocks, nameStarts, names);
+            }
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Footprint {
+        private int items;
+        private int nameChars;
+        private long bytes;         // 배열 5개 합계 (추정)
+        private double bytesPerItem;
+    }
+}
@@ -0,0 +1,159 @@
+package jpabook.jpa.shop.category;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 카테고리 -> 상품 id bitmap (메모리)
+ *
+ * 부연 설명
+ * - 여러 카테고리로 상품을 거르면 category_item 을 카테고리 수만큼 join 해야 한다
+ * - 카테고리마다 속한 상품 id 를 ItemBitmap 으로 들고 있다가, 조건(all / any / none)을 bitmap 연산으로 계산한다
+ *     - 카테고리 조건은 그 아래 하위 카테고리까지 포함한다 (CategoryTree 스냅샷)
+ * - 결과 id 중 한 페이지만 ItemRepository.findAllByIds 로 읽는다
+ * - 상품을 카테고리에 넣는 트랜잭션이 커밋되면 반영 (CategoryService.addItem)
+ * - JDBC 로 직접 넣은 연결(seed 등)과 다른 서버에서 넣은 연결은 rebuild-interval-ms 마다 전체를 다시 읽어서 맞춘다
+ *     - 읽는 동안 add 를 막지 않는다, 그 사이 들어온 add 는 모아 두었다가 교체할 때 새 색인에 다시 반영한다
+ */
+@Slf4j
+@Component
+public class CategoryItemIndex {
+
+    private final JdbcTemplate jdbc;
+    private final CategoryTree categoryTree;
+
+    // 값(ItemBitmap)은 불변, 바꿀 때는 새 bitmap 으로 교체한다
+    private volatile Map<Long, ItemBitmap> bitmaps = new ConcurrentHashMap<>();
+
+    private final Object rebuildLock = new Object(); // rebuild 끼리만 순서대로
+    private List<long[]> addedDuringRebuild; // rebuild 중에 들어온 add (category id, item id), this 모니터 안에서만
+
+    public CategoryItemIndex(JdbcTemplate jdbc, CategoryTree categoryTree) {
+        this.jdbc = jdbc;
+        this.categoryTree = categoryTree;
+    }
+
+    // 읽기는 잠금 밖에서, 교체만 add 와 같은 모니터 안에서 (읽는 동안 들어온 add 를 다시 반영)
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${shop.category.item-index.rebuild-interval-ms:600000}",
+               initialDelayString = "${shop.category.item-index.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.currentTimeMillis();
+            synchronized (this) {
+                addedDuringRebuild = new ArrayList<>();
+            }
+            Map<Long, ItemBitmap> rebuilt = new ConcurrentHashMap<>();
+            try {
+                Map<Long, List<Long>> itemIds = new HashMap<>();
+                jdbc.query("select category_id, item_id from category_item",
+                        rs -> {
+                            itemIds.computeIfAbsent(rs.getLong(1), key -> new ArrayList<>()).add(rs.getLong(2));
+                        });
+                itemIds.forEach((categoryId, ids) ->
+                        rebuilt.put(categoryId, ItemBitmap.of(ids.stream().mapToLong(Long::longValue).toArray())));
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    addedDuringRebuild = null;
+                }
+                throw e;
+            }
+
+            synchronized (this) {
+                for (long[] added : addedDuringRebuild) {
+                    merge(rebuilt, added[0], added[1]);
+                }
+                addedDuringRebuild = null;
+                bitmaps = rebuilt;
+            }
+            log.info("카테고리 상품 bitmap 생성: 카테고리 {} 개 ({} ms)", rebuilt.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    // 트랜잭션 안이면 커밋된 뒤에 반영 (롤백된 연결이 검색되지 않도록)
+    public void addAfterCommit(Long categoryId, Long itemId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(categoryId, itemId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(categoryId, itemId);
+            }
+        });
+    }
+
+    public synchronized void add(Long categoryId, Long itemId) {
+        merge(bitmaps, categoryId, itemId);
+        if (addedDuringRebuild != null) {
+            addedDuringRebuild.add(new long[]{categoryId, itemId});
+        }
+    }
+
+    private static void merge(Map<Long, ItemBitmap> bitmaps, long categoryId, long itemId) {
+        bitmaps.merge(categoryId, ItemBitmap.of(itemId), (old, added) -> old.with(itemId));
+    }
+
+    /**
+     * (all 카테고리 모두에 속하고) 그리고 (any 중 하나에 속하고) none 어디에도 속하지 않는 상품 id
+     * - 비어 있는 조건은 빼고 계산한다, all 과 any 가 둘 다 비어 있으면 안 된다
+     * - 각 카테고리는 하위 카테고리 상품까지 포함
+     */
+    public ItemBitmap filter(Collection<Long> all, Collection<Long> any, Collection<Long> none) {
+        if (all.isEmpty() && any.isEmpty()) {
+            throw new IllegalArgumentException("all 이나 any 에 카테고리가 하나는 있어야 합니다.");
+        }
+        Map<Long, ItemBitmap> current = bitmaps;
+        CategoryTree.Snapshot tree = categoryTree.snapshot();
+
+        ItemBitmap result = null;
+        for (Long categoryId : all) {
+            ItemBitmap bitmap = subtree(current, tree, categoryId);
+            result = result == null ? bitmap : result.and(bitmap);
+            if (result.isEmpty()) {
+                return result;
+            }
+        }
+        if (!any.isEmpty()) {
+            List<ItemBitmap> anyBitmaps = new ArrayList<>();
+            for (Long categoryId : any) {
+                anyBitmaps.add(subtree(current, tree, categoryId));
+            }
+            ItemBitmap union = ItemBitmap.orAll(anyBitmaps);
+            result = result == null ? union : result.and(union);
+        }
+        for (Long categoryId : none) {
+            if (result.isEmpty()) {
+                break;
+            }
+            result = result.andNot(subtree(current, tree, categoryId));
+        }
+        return result;
+    }
+
+    // 스냅샷에 없는 카테고리(방금 생성)는 자기 상품만
+    private static ItemBitmap subtree(Map<Long, ItemBitmap> bitmaps, CategoryTree.Snapshot tree, Long categoryId) {
+        List<Long> ids = tree.subtreeIds(categoryId);
+        if (ids.isEmpty()) {
+            return bitmaps.getOrDefault(categoryId, ItemBitmap.EMPTY);
+        }
+        List<ItemBitmap> subtree = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ItemBitmap bitmap = bitmaps.get(id);
+            if (bitmap != null) {
+                subtree.add(bitmap);
+            }
+        }
+        return ItemBitmap.orAll(subtree);
+    }
+}
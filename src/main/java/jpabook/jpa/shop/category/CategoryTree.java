@@ -0,0 +1,156 @@
+package jpabook.jpa.shop.category;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * 카테고리 트리 스냅샷 (메모리, 불변)
+ *
+ * 부연 설명
+ * - parent / child 연관관계로 트리를 훑으면 단계마다 카테고리 수만큼 쿼리가 나간다
+ * - 카테고리는 거의 바뀌지 않으므로 전체를 한 번 읽어서 불변 스냅샷으로 들고 있고, 바뀌면(생성 / 이동 커밋) 통째로 다시 만든다
+ * - 읽는 쪽은 잠금 없이 snapshot() 을 받아서 쓴다 (도중에 교체돼도 받은 스냅샷은 그대로)
+ * - 다른 서버에서 바뀐 카테고리는 refresh-interval-ms 마다 전체를 다시 읽어서 맞춘다
+ *     - 그 사이에는 옛 트리일 수 있으므로, 하위 카테고리의 상품 조회(CategoryService.findItems)는 path 를 DB 에서 읽는다
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CategoryTree {
+
+    private final JdbcTemplate jdbc;
+
+    private volatile Snapshot snapshot = Snapshot.of(Collections.emptyList());
+
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    // 동시에 여러 번 불려도 나중에 읽은 결과가 마지막에 반영되도록 순서대로
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${shop.category.tree.refresh-interval-ms:600000}",
+               initialDelayString = "${shop.category.tree.refresh-interval-ms:600000}")
+    public synchronized void refresh() {
+        List<Node> nodes = jdbc.query("select category_id, name, path, parent_id from category",
+                (rs, rowNum) -> new Node(rs.getLong(1), rs.getString(2), rs.getString(3),
+                        rs.getObject(4, Long.class), Collections.emptyList()));
+        snapshot = Snapshot.of(nodes);
+        log.info("카테고리 트리 스냅샷 생성: {} 개", nodes.size());
+    }
+
+    // 트랜잭션 안이면 커밋된 뒤에 (커밋 전에 읽으면 바뀌기 전 트리가 된다)
+    public void refreshAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refresh();
+            }
+        });
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Node {
+        private final Long id;
+        private final String name;
+        private final String path;
+        private final Long parentId;
+        private final List<Long> childIds;
+    }
+
+    public static class Snapshot {
+
+        private final Map<Long, Node> nodes;
+        private final List<Node> roots;
+
+        private Snapshot(Map<Long, Node> nodes, List<Node> roots) {
+            this.nodes = nodes;
+            this.roots = roots;
+        }
+
+        // parentId 로 자식 목록을 채워서 불변으로
+        static Snapshot of(List<Node> rows) {
+            Map<Long, List<Long>> childIds = new HashMap<>();
+            for (Node row : rows) {
+                if (row.getParentId() != null) {
+                    childIds.computeIfAbsent(row.getParentId(), key -> new ArrayList<>()).add(row.getId());
+                }
+            }
+
+            Map<Long, Node> nodes = new LinkedHashMap<>();
+            List<Node> roots = new ArrayList<>();
+            rows.stream()
+                    .sorted(Comparator.comparing(Node::getId))
+                    .forEach(row -> {
+                        List<Long> children = childIds.getOrDefault(row.getId(), Collections.emptyList());
+                        children.sort(Comparator.naturalOrder());
+                        Node node = new Node(row.getId(), row.getName(), row.getPath(), row.getParentId(), List.copyOf(children));
+                        nodes.put(node.getId(), node);
+                        if (node.getParentId() == null) {
+                            roots.add(node);
+                        }
+                    });
+            return new Snapshot(Collections.unmodifiableMap(nodes), List.copyOf(roots));
+        }
+
+        /**
+         * @return 없으면 null (스냅샷이 만들어진 뒤 생긴 카테고리)
+         */
+        public Node get(Long id) {
+            return nodes.get(id);
+        }
+
+        public List<Node> roots() {
+            return roots;
+        }
+
+        public List<Node> children(Long id) {
+            Node node = nodes.get(id);
+            if (node == null) {
+                return Collections.emptyList();
+            }
+            List<Node> children = new ArrayList<>(node.getChildIds().size());
+            node.getChildIds().forEach(childId -> children.add(nodes.get(childId)));
+            return children;
+        }
+
+        /**
+         * id 와 그 아래 모든 카테고리 id (자기 포함, 깊이 우선)
+         */
+        public List<Long> subtreeIds(Long id) {
+            List<Long> ids = new ArrayList<>();
+            if (!nodes.containsKey(id)) {
+                return ids;
+            }
+            Deque<Long> stack = new ArrayDeque<>();
+            stack.push(id);
+            while (!stack.isEmpty()) {
+                Long current = stack.pop();
+                ids.add(current);
+                List<Long> children = nodes.get(current).getChildIds();
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(children.get(i));
+                }
+            }
+            return ids;
+        }
+
+        public int size() {
+            return nodes.size();
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package jpabook.jpa.shop.category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 상품 id 집합 (압축 bitmap, 불변)
+ *
+ * 부연 설명
+ * - Roaring bitmap 방식: id 의 상위 16bit 로 묶음(container)을 나누고, 묶음마다 하위 16bit 를
+ *     - 4096 개 이하면 정렬된 char 배열(ArrayContainer, 개당 2byte)
+ *     - 넘으면 65536 bit 짜리 bitmap(BitmapContainer, 고정 8KB)
+ *   중 작은 쪽으로 들고 있다
+ * - and / or / andNot 은 같은 상위 16bit 묶음끼리만 계산하므로, 한쪽에만 있는 묶음은 보지도 않는다
+ * - id 는 0 ~ 2^32-1 (시퀀스 id 기준으로 충분하다)
+ * - 바꾸는 연산(with)도 새 객체를 돌려주므로 잠금 없이 여러 스레드가 같이 읽을 수 있다
+ */
+public final class ItemBitmap {
+
+    static final ItemBitmap EMPTY = new ItemBitmap(new char[0], new Container[0]);
+
+    private static final long MAX_ID = 0xFFFFFFFFL;
+    private static final int ARRAY_MAX = 4096; // 넘으면 bitmap 이 더 작다 (4096 * 2byte = 8KB)
+
+    private final char[] keys; // 상위 16bit, 오름차순
+    private final Container[] containers;
+    private final long cardinality;
+
+    private ItemBitmap(char[] keys, Container[] containers) {
+        this.keys = keys;
+        this.containers = containers;
+        long sum = 0;
+        for (Container container : containers) {
+            sum += container.cardinality();
+        }
+        this.cardinality = sum;
+    }
+
+    static ItemBitmap of(long... ids) {
+        if (ids.length == 0) {
+            return EMPTY;
+        }
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        checkId(sorted[0]);
+        checkId(sorted[sorted.length - 1]);
+
+        List<Character> keys = new ArrayList<>();
+        List<Container> containers = new ArrayList<>();
+        int from = 0;
+        while (from < sorted.length) {
+            char key = high(sorted[from]);
+            char[] lows = new char[sorted.length - from];
+            int count = 0;
+            int i = from;
+            for (; i < sorted.length && high(sorted[i]) == key; i++) {
+                char low = low(sorted[i]);
+                if (count == 0 || lows[count - 1] != low) {
+                    lows[count++] = low;
+                }
+            }
+            keys.add(key);
+            containers.add(Container.fromSorted(Arrays.copyOf(lows, count)));
+            from = i;
+        }
+        return build(keys, containers);
+    }
+
+    /**
+     * @return id 를 더한 새 bitmap (이미 있으면 this)
+     */
+    ItemBitmap with(long id) {
+        checkId(id);
+        char key = high(id);
+        int index = Arrays.binarySearch(keys, key);
+        if (index >= 0) {
+            if (containers[index].contains(low(id))) {
+                return this;
+            }
+            Container[] copy = containers.clone();
+            copy[index] = containers[index].or(Container.fromSorted(new char[]{low(id)}));
+            return new ItemBitmap(keys, copy);
+        }
+        int insert = -index - 1;
+        char[] newKeys = new char[keys.length + 1];
+        Container[] newContainers = new Container[containers.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, insert);
+        System.arraycopy(containers, 0, newContainers, 0, insert);
+        newKeys[insert] = key;
+        newContainers[insert] = Container.fromSorted(new char[]{low(id)});
+        System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+        System.arraycopy(containers, insert, newContainers, insert + 1, containers.length - insert);
+        return new ItemBitmap(newKeys, newContainers);
+    }
+
+    public boolean contains(long id) {
+        if (id < 0 || id > MAX_ID) {
+            return false;
+        }
+        int index = Arrays.binarySearch(keys, high(id));
+        return index >= 0 && containers[index].contains(low(id));
+    }
+
+    public long cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    public ItemBitmap and(ItemBitmap other) {
+        List<Character> keys = new ArrayList<>();
+        List<Container> containers = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < this.keys.length && j < other.keys.length) {
+            if (this.keys[i] < other.keys[j]) {
+                i++;
+            } else if (this.keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                add(keys, containers, this.keys[i], this.containers[i].and(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return build(keys, containers);
+    }
+
+    public ItemBitmap or(ItemBitmap other) {
+        List<Character> keys = new ArrayList<>();
+        List<Container> containers = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < this.keys.length || j < other.keys.length) {
+            if (j == other.keys.length || (i < this.keys.length && this.keys[i] < other.keys[j])) {
+                add(keys, containers, this.keys[i], this.containers[i]);
+                i++;
+            } else if (i == this.keys.length || this.keys[i] > other.keys[j]) {
+                add(keys, containers, other.keys[j], other.containers[j]);
+                j++;
+            } else {
+                add(keys, containers, this.keys[i], this.containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return build(keys, containers);
+    }
+
+    public ItemBitmap andNot(ItemBitmap other) {
+        List<Character> keys = new ArrayList<>();
+        List<Container> containers = new ArrayList<>();
+        int j = 0;
+        for (int i = 0; i < this.keys.length; i++) {
+            while (j < other.keys.length && other.keys[j] < this.keys[i]) {
+                j++;
+            }
+            if (j < other.keys.length && other.keys[j] == this.keys[i]) {
+                add(keys, containers, this.keys[i], this.containers[i].andNot(other.containers[j]));
+            } else {
+                add(keys, containers, this.keys[i], this.containers[i]);
+            }
+        }
+        return build(keys, containers);
+    }
+
+    static ItemBitmap orAll(Collection<ItemBitmap> bitmaps) {
+        ItemBitmap result = EMPTY;
+        for (ItemBitmap bitmap : bitmaps) {
+            result = result.or(bitmap);
+        }
+        return result;
+    }
+
+    /**
+     * 오름차순으로 offset 번째부터 limit 개 (페이지)
+     * - 앞쪽 묶음은 개수만 보고 건너뛴다
+     */
+    public List<Long> ids(long offset, int limit) {
+        List<Long> result = new ArrayList<>(Math.min(limit, (int) Math.min(Integer.MAX_VALUE, cardinality)));
+        long skip = offset;
+        for (int i = 0; i < containers.length && result.size() < limit; i++) {
+            int size = containers[i].cardinality();
+            if (skip >= size) {
+                skip -= size;
+                continue;
+            }
+            containers[i].collect((long) keys[i] << 16, (int) skip, limit, result);
+            skip = 0;
+        }
+        return result;
+    }
+
+    public List<Long> ids() {
+        return ids(0, (int) Math.min(Integer.MAX_VALUE, cardinality));
+    }
+
+    private static void add(List<Character> keys, List<Container> containers, char key, Container container) {
+        if (container.cardinality() > 0) {
+            keys.add(key);
+            containers.add(container);
+        }
+    }
+
+    private static ItemBitmap build(List<Character> keys, List<Container> containers) {
+        if (keys.isEmpty()) {
+            return EMPTY;
+        }
+        char[] keyArray = new char[keys.size()];
+        for (int i = 0; i < keyArray.length; i++) {
+            keyArray[i] = keys.get(i);
+        }
+        return new ItemBitmap(keyArray, containers.toArray(new Container[0]));
+    }
+
+    private static void checkId(long id) {
+        if (id < 0 || id > MAX_ID) {
+            throw new IllegalArgumentException("bitmap 에 넣을 수 없는 상품 id 입니다. id=" + id);
+        }
+    }
+
+    private static char high(long id) {
+        return (char) (id >>> 16);
+    }
+
+    private static char low(long id) {
+        return (char) id;
+    }
+
+    /**
+     * 상위 16bit 가 같은 id 들의 하위 16bit 집합 (불변)
+     */
+    private abstract static class Container {
+
+        abstract int cardinality();
+
+        abstract boolean contains(char value);
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container andNot(Container other);
+
+        // 오름차순으로 skip 개를 건너뛰고 out 이 limit 개가 될 때까지 (high | value) 를 넣는다
+        abstract void collect(long high, int skip, int limit, List<Long> out);
+
+        static Container fromSorted(char[] values) {
+            return values.length <= ARRAY_MAX ? new ArrayContainer(values) : BitmapContainer.from(values);
+        }
+
+        // bitmap 결과는 개수에 따라 다시 작은 쪽으로
+        static Container fromWords(long[] words) {
+            int count = 0;
+            for (long word : words) {
+                count += Long.bitCount(word);
+            }
+            if (count > ARRAY_MAX) {
+                return new BitmapContainer(words, count);
+            }
+            char[] values = new char[count];
+            int n = 0;
+            for (int w = 0; w < words.length; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    values[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values);
+        }
+    }
+
+    private static final class ArrayContainer extends Container {
+
+        private final char[] values; // 오름차순, 중복 없음
+
+        ArrayContainer(char[] values) {
+            this.values = values;
+        }
+
+        @Override
+        int cardinality() {
+            return values.length;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, value) >= 0;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[values.length];
+            int n = 0;
+            if (other instanceof ArrayContainer) {
+                char[] others = ((ArrayContainer) other).values;
+                int i = 0;
+                int j = 0;
+                while (i < values.length && j < others.length) {
+                    if (values[i] < others[j]) {
+                        i++;
+                    } else if (values[i] > others[j]) {
+                        j++;
+                    } else {
+                        result[n++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (char value : values) {
+                    if (other.contains(value)) {
+                        result[n++] = value;
+                    }
+                }
+            }
+            return new ArrayContainer(Arrays.copyOf(result, n));
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            char[] others = ((ArrayContainer) other).values;
+            char[] result = new char[values.length + others.length];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < values.length || j < others.length) {
+                if (j == others.length || (i < values.length && values[i] < others[j])) {
+                    result[n++] = values[i++];
+                } else if (i == values.length || values[i] > others[j]) {
+                    result[n++] = others[j++];
+                } else {
+                    result[n++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return fromSorted(Arrays.copyOf(result, n));
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] result = new char[values.length];
+            int n = 0;
+            for (char value : values) {
+                if (!other.contains(value)) {
+                    result[n++] = value;
+                }
+            }
+            return new ArrayContainer(Arrays.copyOf(result, n));
+        }
+
+        @Override
+        void collect(long high, int skip, int limit, List<Long> out) {
+            for (int i = skip; i < values.length && out.size() < limit; i++) {
+                out.add(high | values[i]);
+            }
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+
+        private final long[] words; // 1024 개 = 65536 bit
+        private final int cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        static BitmapContainer from(char[] values) {
+            long[] words = new long[1024];
+            for (char value : values) {
+                words[value >>> 6] |= 1L << value;
+            }
+            return new BitmapContainer(words, values.length);
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] others = ((BitmapContainer) other).words;
+            long[] result = new long[1024];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = words[i] & others[i];
+            }
+            return fromWords(result);
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] result = words.clone();
+            if (other instanceof ArrayContainer) {
+                for (char value : ((ArrayContainer) other).values) {
+                    result[value >>> 6] |= 1L << value;
+                }
+            } else {
+                long[] others = ((BitmapContainer) other).words;
+                for (int i = 0; i < result.length; i++) {
+                    result[i] |= others[i];
+                }
+            }
+            return fromWords(result);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] result = words.clone();
+            if (other instanceof ArrayContainer) {
+                for (char value : ((ArrayContainer) other).values) {
+                    result[value >>> 6] &= ~(1L << value);
+                }
+            } else {
+                long[] others = ((BitmapContainer) other).words;
+                for (int i = 0; i < result.length; i++) {
+                    result[i] &= ~others[i];
+                }
+            }
+            return fromWords(result);
+        }
+
+        @Override
+        void collect(long high, int skip, int limit, List<Long> out) {
+            int seen = 0;
+            for (int w = 0; w < words.length && out.size() < limit; w++) {
+                long word = words[w];
+                int bits = Long.bitCount(word);
+                if (seen + bits <= skip) {
+                    seen += bits;
+                    continue;
+                }
+                while (word != 0 && out.size() < limit) {
+                    if (seen++ >= skip) {
+                        out.add(high | ((w << 6) + Long.numberOfTrailingZeros(word)));
+                    }
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+}
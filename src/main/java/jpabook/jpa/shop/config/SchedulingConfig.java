@@ -0,0 +1,12 @@
+package jpabook.jpa.shop.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * @Scheduled 사용 (재고 원장 write-behind 등)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,20 @@
+package jpabook.jpa.shop.config;
+
+import jpabook.jpa.shop.monitor.SqlStatementInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final SqlStatementInterceptor sqlStatementInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(sqlStatementInterceptor)
+                .excludePathPatterns("/admin/**", "/css/**", "/js/**");
+    }
+}
@@ -1,18 +1,21 @@
 package jpabook.jpa.shop.controller;
 
+import jpabook.jpa.shop.catalog.CatalogItem;
 import jpabook.jpa.shop.domain.item.Book;
-import jpabook.jpa.shop.domain.item.Item;
 import jpabook.jpa.shop.dto.request.BookRequestDTO;
 import jpabook.jpa.shop.form.BookForm;
+import jpabook.jpa.shop.repository.item.query.BookDto;
 import jpabook.jpa.shop.service.ItemService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.server.ResponseStatusException;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotEmpty;
@@ -33,7 +36,7 @@ public class ItemController {
 
     @GetMapping("/items")
     public String findAll(Model model) {
-        List<Item> items = itemService.findAll();
+        List<CatalogItem> items = itemService.findCatalog();
         model.addAttribute("items", items);
         return "items/itemList";
     }
@@ -41,7 +44,11 @@ public class ItemController {
     @GetMapping("/items/{itemId}/edit")
     public String updateItemForm(@PathVariable("itemId") Long itemId, Model model) {
 
-        Book item = (Book) itemService.findById(itemId);
+        // 수정 화면은 도서 전용, 도서 컬럼만 읽는다 (음반 / 영화면 404)
+        BookDto item = itemService.findBook(itemId);
+        if (item == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "수정할 도서가 없습니다. itemId=" + itemId);
+        }
 
         BookForm form = new BookForm();
         form.setId(item.getId());
@@ -1,17 +1,26 @@
 package jpabook.jpa.shop.controller;
 
+import jpabook.jpa.shop.catalog.CatalogItem;
 import jpabook.jpa.shop.domain.Member;
-import jpabook.jpa.shop.domain.Order;
-import jpabook.jpa.shop.domain.item.Item;
+import jpabook.jpa.shop.dto.request.OrderRequestDTO;
+import jpabook.jpa.shop.exception.OrderQueueFullException;
+import jpabook.jpa.shop.intake.OrderIntake;
 import jpabook.jpa.shop.repository.OrderSearch;
+import jpabook.jpa.shop.repository.order.query.OrderListDto;
 import jpabook.jpa.shop.service.ItemService;
 import jpabook.jpa.shop.service.MemberService;
 import jpabook.jpa.shop.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
@@ -23,11 +32,12 @@ public class OrderController {
     private final OrderService orderService;
     private final MemberService memberService;
     private final ItemService itemService;
+    private final ObjectProvider<OrderIntake> orderIntake; // shop.order.intake.enabled=true 일 때만 존재
 
     @GetMapping("/order")
     public String createForm(Model model) {
         List<Member> members = memberService.findAll();
-        List<Item> items = itemService.findAll();
+        List<CatalogItem> items = itemService.findCatalog();
         model.addAttribute("members", members);
         model.addAttribute("items", items);
         return "order/orderForm";
@@ -46,22 +56,39 @@ public class OrderController {
                         @RequestParam("itemId") Long itemId,
                         @RequestParam("count") int count) {
 
-        orderService.order(memberId, itemId, count);
+        OrderIntake intake = orderIntake.getIfAvailable();
+        if (intake == null) {
+            orderService.order(memberId, itemId, count);
+            return "redirect:/orders";
+        }
+
+        // 비동기 접수 모드: 큐에 넣고 바로 목록으로 (목록에는 커밋된 뒤에 보인다)
+        try {
+            intake.submit(new OrderRequestDTO(memberId, itemId, count));
+        } catch (OrderQueueFullException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+        }
         return "redirect:/orders";
     }
 
     /**
      * 상품 검색
+     * - 최근 주문부터 page / size 단위로 (size 최대는 spring.data.web.pageable.max-page-size)
+     * - 화면 컬럼만 담은 OrderListDto 로 그린다 (렌더링 중 지연 로딩 없음)
      *
      * @param orderSearch
+     * @param pageable
      * @param model
      * @return
      */
     @GetMapping("/orders")
-    public String findAll(@ModelAttribute("orderSearch") OrderSearch orderSearch, Model model) {
+    public String findAll(@ModelAttribute("orderSearch") OrderSearch orderSearch,
+                          @PageableDefault(size = 20) Pageable pageable,
+                          Model model) {
         log.info("orderSearch = {}", orderSearch.toString());
-        List<Order> orders = orderService.searchOrder(orderSearch);
-        model.addAttribute("orders", orders);
+        Page<OrderListDto> page = orderService.searchOrderList(orderSearch, pageable);
+        model.addAttribute("orders", page.getContent());
+        model.addAttribute("page", page);
         return "order/orderList";
     }
 
@@ -2,6 +2,8 @@ package jpabook.jpa.shop.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -9,6 +11,8 @@ import java.util.List;
 
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_member_username", columnNames = "username")) // 동시 가입 중복 방지 + 이름 조회 인덱스
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // 2차 캐시 (orders 컬렉션은 캐시하지 않는다)
 @Getter
 @Setter
 //@Builder
@@ -16,7 +20,8 @@ import java.util.List;
 public class Member {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
     @Column(name = "member_id")
     private Long id;
 
@@ -25,7 +30,7 @@ public class Member {
     @Embedded
     private Address address;
 
-//    @JsonIgnore
+    @JsonIgnore
     @OneToMany(mappedBy = "member")
     private List<Order> orders = new ArrayList<>();
 
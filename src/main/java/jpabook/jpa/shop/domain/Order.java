@@ -12,12 +12,33 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_order_date", columnList = "orderDate, order_id"), // keyset 페이징(orderDate 정렬)
+        @Index(name = "idx_orders_member_id", columnList = "member_id") // 회원 이름 검색(MemberNameIndex) 후 회원 id 로 주문 조회
+})
+@NamedEntityGraphs({ // 조회 용도별 fetch plan (OrderFetchPlan)
+        @NamedEntityGraph(name = "Order.summary", attributeNodes = {
+                @NamedAttributeNode("member"),
+                @NamedAttributeNode("delivery")
+        }),
+        @NamedEntityGraph(name = "Order.withItems", attributeNodes = {
+                @NamedAttributeNode("member"),
+                @NamedAttributeNode("delivery"),
+                @NamedAttributeNode("orderItems")
+        }),
+        @NamedEntityGraph(name = "Order.withItemsAndProducts", attributeNodes = {
+                @NamedAttributeNode("member"),
+                @NamedAttributeNode("delivery"),
+                @NamedAttributeNode(value = "orderItems", subgraph = "orderItems")
+        }, subgraphs = @NamedSubgraph(name = "orderItems", attributeNodes = @NamedAttributeNode("item")))
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Order {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq_generator")
+    @SequenceGenerator(name = "orders_seq_generator", sequenceName = "orders_seq", allocationSize = 50)
     @Column(name = "order_id")
     private Long id;
 
@@ -70,15 +91,14 @@ public class Order {
     // 비즈니스 로직
     /**
      * 주문 취소
+     * - 재고 원복은 OrderService 에서 ItemRepository.increaseStock 으로 처리 (메모리에서 더하면 동시 주문의 차감을 덮어쓴다)
+     * - 중복 / 동시 취소는 OrderService 가 OrderRepository.changeStatus 로 먼저 막는다
      */
     public void cancelOrder() {
         if (delivery.getStatus() == DeliveryStatus.COMP) { // 배송 완료
             throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다.");
         }
         this.setStatus(OrderStatus.CANCEL);
-        for (OrderItem orderItem : orderItems) {
-            orderItem.cancel(); // 모든 제품 취소
-        }
     }
     
     // 조회 로직
@@ -14,7 +14,9 @@ import javax.persistence.*;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class OrderItem {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq_generator")
+    @SequenceGenerator(name = "order_item_seq_generator", sequenceName = "order_item_seq", allocationSize = 50)
     @Column(name = "order_item_id")
     private Long id;
 
@@ -22,7 +24,7 @@ public class OrderItem {
     @JoinColumn(name = "item_id")
     private Item item;
 
-//    @JsonIgnore
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id")
     private Order order;
@@ -41,9 +43,13 @@ public class OrderItem {
         return orderItem;
     }
 
-    // 비즈니스 로직
-    public void cancel() {
-        getItem().addStock(count); // 재고 수량 원복
+    // 재고를 이미 DB 에서 차감한 경우 (ItemRepository.decreaseStock) -> Item 엔티티의 재고는 건드리지 않는다
+    public static OrderItem createReservedOrderItem(Item item, int orderPrice, int count) {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setItem(item);
+        orderItem.setOrderPrice(orderPrice);
+        orderItem.setCount(count);
+        return orderItem;
     }
 
     // 주문 상품 전체 가격 조회
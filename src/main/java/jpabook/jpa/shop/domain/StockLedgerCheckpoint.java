@@ -0,0 +1,24 @@
+package jpabook.jpa.shop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * 재고 원장(StockLedger)이 DB 에 반영한 마지막 저널 seq
+ * - 재고 반영과 같은 트랜잭션에서 갱신된다
+ * - 엔티티로 두어서 ddl-auto=create 로 스키마를 다시 만들면 같이 지워지게 한다 (이전 DB 의 저널을 새 DB 에 재생하지 않도록)
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class StockLedgerCheckpoint {
+
+    @Id
+    private Long id;
+
+    private long lastSeq;
+}
@@ -1,5 +1,6 @@
 package jpabook.jpa.shop.domain.item;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -8,6 +9,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_category_path", columnList = "path")) // 하위 카테고리 전체 = path like '/1/5/%'
 @Getter @Setter
 public class Category {
 
@@ -17,10 +19,19 @@ public class Category {
 
     private String name;
 
+    /**
+     * 루트부터 자기까지의 id 경로 (materialized path) ex) /1/5/12/
+     * - 저장(persist)해서 id 가 정해진 뒤 markRoot / addChildCategory 로 정한다 (insert 는 flush 때 path 와 함께)
+     * - 하위 카테고리를 옮기면 그 아래 path 는 CategoryRepository.rewriteSubtreePaths 로 한 번에 바꾼다
+     */
+    @Setter(AccessLevel.NONE)
+    private String path;
+
     @ManyToMany
     @JoinTable(name = "category_item",
             joinColumns = @JoinColumn(name = "category_id"),
-            inverseJoinColumns = @JoinColumn(name = "item_id"))
+            inverseJoinColumns = @JoinColumn(name = "item_id"),
+            indexes = @Index(name = "idx_category_item_category", columnList = "category_id, item_id"))
     private List<Item> items = new ArrayList<>();
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -31,8 +42,35 @@ public class Category {
     @OneToMany(mappedBy = "parent")
     private List<Category> child = new ArrayList<>();
 
+    public void markRoot() {
+        checkSaved(this);
+        this.path = "/" + id + "/";
+    }
+
+    /**
+     * 하위 카테고리 연결 (다른 부모 아래 있던 카테고리면 옮긴다)
+     * - 자기 자신이나 자기 하위 카테고리 아래로는 옮길 수 없다
+     */
     public void addChildCategory(Category child) {
+        checkSaved(this);
+        checkSaved(child);
+        if (this.path == null) {
+            throw new IllegalStateException("경로가 정해진 카테고리 아래에만 연결할 수 있습니다.");
+        }
+        if (child.path != null && this.path.startsWith(child.path)) {
+            throw new IllegalArgumentException("자기 자신이나 하위 카테고리 아래로 옮길 수 없습니다.");
+        }
+        if (child.parent != null) {
+            child.parent.child.remove(child);
+        }
         this.child.add(child);
         child.setParent(this);
+        child.path = this.path + child.id + "/";
+    }
+
+    private static void checkSaved(Category category) {
+        if (category.id == null) {
+            throw new IllegalStateException("저장된 카테고리만 연결할 수 있습니다.");
+        }
     }
 }
@@ -3,6 +3,8 @@ package jpabook.jpa.shop.domain.item;
 import jpabook.jpa.shop.exception.NotEnoughStockException;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -11,11 +13,14 @@ import java.util.List;
 @Entity
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE) //단일 테이블 전략
 @DiscriminatorColumn(name = "dtype")
+@Table(indexes = @Index(name = "idx_item_dtype", columnList = "dtype, item_id")) // 하위 타입별 목록 (ItemQueryRepository), id 순 페이지
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // 2차 캐시, 하위 타입도 같은 region (재고 벌크 update 는 ItemRepository 에서 id 단위로 evict)
 @Getter @Setter
 public abstract class Item {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_seq_generator")
+    @SequenceGenerator(name = "item_seq_generator", sequenceName = "item_seq", allocationSize = 50)
     @Column(name = "item_id")
     private Long id;
 
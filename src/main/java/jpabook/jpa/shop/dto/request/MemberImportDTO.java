@@ -0,0 +1,22 @@
+package jpabook.jpa.shop.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 회원 일괄 등록의 한 줄 (JSON 배열의 원소 또는 CSV 한 줄: username,city,street,zipcode)
+ * - 잘못된 줄은 전체를 거절하지 않고 줄 단위로 거절하므로 Bean Validation 을 걸지 않는다
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberImportDTO {
+
+    private String username;
+    private String city;
+    private String street;
+    private String zipcode;
+}
@@ -0,0 +1,21 @@
+package jpabook.jpa.shop.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 주문 1건 (일괄 주문의 한 줄)
+ * - 잘못된 값은 요청 전체를 거절하지 않고 줄 단위로 실패 처리하므로 Bean Validation 을 걸지 않는다
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderRequestDTO {
+
+    private Long memberId;
+    private Long itemId;
+    private int count;
+}
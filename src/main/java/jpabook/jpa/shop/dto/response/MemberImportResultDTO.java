@@ -0,0 +1,32 @@
+package jpabook.jpa.shop.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 회원 일괄 등록 결과
+ */
+@Getter
+@AllArgsConstructor
+public class MemberImportResultDTO {
+
+    public enum Reason {
+        INVALID,            // username 이 비어 있거나 값이 컬럼 길이(255)를 넘음
+        DUPLICATE_IN_FILE,  // 파일 안에서 앞 줄과 같은 이름
+        ALREADY_EXISTS      // 이미 가입된 이름
+    }
+
+    private int created;
+    private int rejectedCount;
+    private List<Rejected> rejected;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Rejected {
+        private int index;       // 파일에서의 위치 (0 부터, CSV 헤더 제외)
+        private String username;
+        private Reason reason;
+    }
+}
@@ -0,0 +1,30 @@
+package jpabook.jpa.shop.dto.response;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 일괄 주문 결과 (요청 한 줄당 하나, 요청 순서와 같다)
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class OrderResultDTO {
+
+    public enum Status {
+        ORDERED, REJECTED
+    }
+
+    private int index;      // 요청 목록에서의 위치
+    private Status status;
+    private Long orderId;   // ORDERED 일 때만
+    private String reason;  // REJECTED 일 때만
+
+    public static OrderResultDTO ordered(int index, Long orderId) {
+        return new OrderResultDTO(index, Status.ORDERED, orderId, null);
+    }
+
+    public static OrderResultDTO rejected(int index, String reason) {
+        return new OrderResultDTO(index, Status.REJECTED, null, reason);
+    }
+}
@@ -0,0 +1,22 @@
+package jpabook.jpa.shop.exception;
+
+public class OrderQueueFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public OrderQueueFullException() {
+        super();
+    }
+
+    public OrderQueueFullException(String message) {
+        super(message);
+    }
+
+    public OrderQueueFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public OrderQueueFullException(Throwable cause) {
+        super(cause);
+    }
+}
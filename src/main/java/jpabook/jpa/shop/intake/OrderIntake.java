@@ -0,0 +1,204 @@
+package jpabook.jpa.shop.intake;
+
+import jpabook.jpa.shop.dto.request.OrderRequestDTO;
+import jpabook.jpa.shop.dto.response.OrderResultDTO;
+import jpabook.jpa.shop.exception.OrderQueueFullException;
+import jpabook.jpa.shop.service.OrderService;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 비동기 주문 접수 (shop.order.intake.enabled=true)
+ *
+ * 부연 설명
+ * - 주문을 크기가 정해진 메모리 큐에 넣고 바로 접수표(OrderTicket)를 돌려준다
+ * - 워커 스레드가 큐에 쌓인 주문을 최대 max-batch 건씩 꺼내서 OrderService.orderBatch 트랜잭션 하나로 커밋 (group commit)
+ *     - 커밋 1번에 여러 주문이 들어가므로 커밋 지연이 처리량을 막지 않는다
+ *     - 묶음 트랜잭션이 DB 오류로 실패하면 한 건씩 다시 시도해서, 문제 있는 주문 하나 때문에 나머지가 실패하지 않게 한다
+ * - 큐가 가득 차면 OrderQueueFullException (백프레셔), 큐 깊이 / 거절 수 등은 /admin/order-intake 에서 확인
+ * - 큐는 메모리에만 있으므로 서버가 죽으면 아직 커밋되지 않은 접수 건은 사라진다 (종료 시에는 남은 큐를 비우고 내려간다)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shop.order.intake.enabled", havingValue = "true")
+public class OrderIntake {
+
+    private final OrderService orderService;
+    private final BlockingQueue<OrderTicket> queue;
+    private final int queueCapacity;
+    private final int workerCount;
+    private final int maxBatch;
+    private final long ticketTtlMillis;
+    private final ExecutorService workers;
+    private final Map<String, OrderTicket> tickets = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder ordered = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedOrders = new LongAdder();
+
+    public OrderIntake(OrderService orderService,
+                       @Value("${shop.order.intake.queue-capacity:10000}") int queueCapacity,
+                       @Value("${shop.order.intake.workers:4}") int workerCount,
+                       @Value("${shop.order.intake.max-batch:200}") int maxBatch,
+                       @Value("${shop.order.intake.ticket-ttl-seconds:600}") long ticketTtlSeconds) {
+        this.orderService = orderService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.queueCapacity = queueCapacity;
+        this.workerCount = workerCount;
+        this.maxBatch = maxBatch;
+        this.ticketTtlMillis = TimeUnit.SECONDS.toMillis(ticketTtlSeconds);
+
+        AtomicInteger sequence = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "order-intake-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::drain);
+        }
+    }
+
+    /**
+     * 주문 접수
+     *
+     * @throws OrderQueueFullException 대기열이 가득 찼거나 종료 중
+     */
+    public OrderTicket submit(OrderRequestDTO request) {
+        OrderTicket ticket = new OrderTicket(request);
+        if (!running || !queue.offer(ticket)) {
+            rejectedQueueFull.increment();
+            throw new OrderQueueFullException("주문 대기열이 가득 찼습니다. 잠시 후 다시 시도해주세요.");
+        }
+        tickets.put(ticket.getId(), ticket);
+        accepted.increment();
+        return ticket;
+    }
+
+    public OrderTicket findTicket(String ticketId) {
+        return tickets.get(ticketId);
+    }
+
+    public IntakeStats stats() {
+        long batchCount = batches.sum();
+        return new IntakeStats(
+                queue.size(),
+                queueCapacity,
+                workerCount,
+                maxBatch,
+                accepted.sum(),
+                rejectedQueueFull.sum(),
+                ordered.sum(),
+                rejected.sum(),
+                failed.sum(),
+                batchCount,
+                batchCount == 0 ? 0 : (double) batchedOrders.sum() / batchCount,
+                tickets.size());
+    }
+
+    // 처리가 끝나고 TTL 이 지난 접수표 정리
+    @Scheduled(fixedDelay = 60_000)
+    public void evictCompletedTickets() {
+        long expiredBefore = System.currentTimeMillis() - ticketTtlMillis;
+        tickets.values().removeIf(ticket -> ticket.getCompletedAt() != 0 && ticket.getCompletedAt() < expiredBefore);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false; // 워커는 남은 큐를 비운 뒤 종료
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("주문 대기열을 모두 처리하지 못하고 종료합니다. 남은 주문 {}건", queue.size());
+            workers.shutdownNow();
+        }
+    }
+
+    private void drain() {
+        List<OrderTicket> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                OrderTicket first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("주문 대기열 처리 중 오류", e); // 워커가 죽지 않도록
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<OrderTicket> batch) {
+        List<OrderResultDTO> results;
+        try {
+            results = orderService.orderBatch(batch.stream().map(OrderTicket::getRequest).collect(Collectors.toList()));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                failed.increment();
+                batch.get(0).fail(e);
+                return;
+            }
+            log.warn("묶음 주문 {}건 커밋 실패, 한 건씩 다시 시도합니다.", batch.size(), e);
+            for (OrderTicket ticket : batch) {
+                commit(Collections.singletonList(ticket));
+            }
+            return;
+        }
+
+        batches.increment();
+        batchedOrders.add(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            OrderResultDTO result = results.get(i);
+            if (result.getStatus() == OrderResultDTO.Status.ORDERED) {
+                ordered.increment();
+            } else {
+                rejected.increment();
+            }
+            batch.get(i).complete(result);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class IntakeStats {
+        private int queueDepth;
+        private int queueCapacity;
+        private int workers;
+        private int maxBatch;
+        private long accepted;
+        private long rejectedQueueFull; // 백프레셔로 거절된 접수
+        private long ordered;
+        private long rejected;          // 재고 부족 등 주문 거절
+        private long failed;            // DB 오류 등
+        private long batches;           // 커밋한 트랜잭션 수
+        private double avgBatchSize;
+        private int trackedTickets;
+    }
+}
@@ -0,0 +1,50 @@
+package jpabook.jpa.shop.intake;
+
+import jpabook.jpa.shop.dto.request.OrderRequestDTO;
+import jpabook.jpa.shop.dto.response.OrderResultDTO;
+import lombok.Getter;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 비동기 주문 접수표
+ * - 호출한 쪽은 getResult() (future) 를 기다리거나, id 로 상태를 조회한다
+ */
+@Getter
+public class OrderTicket {
+
+    public enum Status {
+        QUEUED, ORDERED, REJECTED, FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final OrderRequestDTO request;
+    private final long submittedAt = System.currentTimeMillis();
+    private final CompletableFuture<OrderResultDTO> result = new CompletableFuture<>();
+    private volatile long completedAt;
+
+    OrderTicket(OrderRequestDTO request) {
+        this.request = request;
+    }
+
+    public Status getStatus() {
+        if (!result.isDone()) {
+            return Status.QUEUED;
+        }
+        if (result.isCompletedExceptionally()) {
+            return Status.FAILED;
+        }
+        return result.join().getStatus() == OrderResultDTO.Status.ORDERED ? Status.ORDERED : Status.REJECTED;
+    }
+
+    void complete(OrderResultDTO orderResult) {
+        completedAt = System.currentTimeMillis();
+        result.complete(orderResult);
+    }
+
+    void fail(Throwable cause) {
+        completedAt = System.currentTimeMillis();
+        result.completeExceptionally(cause);
+    }
+}
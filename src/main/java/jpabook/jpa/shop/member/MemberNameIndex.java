@@ -0,0 +1,206 @@
+package jpabook.jpa.shop.member;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 회원 이름 부분 검색용 trigram 역색인 (메모리)
+ *
+ * 부연 설명
+ * - username like '%kim%' 은 인덱스를 못 타고 member 전체를 읽는다
+ * - 이름을 소문자로 바꿔 3글자씩 자른 조각(trigram) -> 회원 id 목록을 들고 있다가,
+ *   검색어의 trigram 목록을 교집합하고 실제로 포함하는지 확인해서 회원 id 를 돌려준다
+ *     - 검색어가 3글자보다 짧으면 trigram 이 없으므로 이름 전체를 메모리에서 훑는다
+ * - 주문 검색은 이 id 로 orders.member_id 인덱스만 찾는다 (OrderRepository.findAll)
+ * - 가입 / 이름 변경 / 일괄 등록이 커밋되면 반영, 다른 서버에서 바뀐 이름은 rebuild-interval-ms 마다 전체를 다시 읽어서 맞춘다
+ * - 만들기 전이거나 후보가 너무 많으면(max-candidates) null 을 돌려주고 SQL like 로 검색하게 한다
+ */
+@Slf4j
+@Component
+public class MemberNameIndex {
+
+    private static final int GRAM = 3;
+
+    private final JdbcTemplate jdbc;
+    private final int maxCandidates;
+
+    private volatile Index index; // null 이면 아직 만들기 전
+
+    private final Object rebuildLock = new Object(); // rebuild 끼리만 순서대로
+    private Map<Long, String> putDuringRebuild; // rebuild 중에 들어온 put, this 모니터 안에서만
+
+    public MemberNameIndex(JdbcTemplate jdbc,
+                           @Value("${shop.member.name-index.max-candidates:4096}") int maxCandidates) {
+        this.jdbc = jdbc;
+        this.maxCandidates = maxCandidates;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${shop.member.name-index.rebuild-interval-ms:600000}",
+               initialDelayString = "${shop.member.name-index.rebuild-interval-ms:600000}")
+    // 읽기는 잠금 밖에서 (가입 / 이름 변경의 put 을 막지 않는다), 읽는 동안 들어온 put 은 교체할 때 새 색인에 다시 반영한다
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.currentTimeMillis();
+            synchronized (this) {
+                putDuringRebuild = new HashMap<>();
+            }
+            Map<Long, String> members = new HashMap<>();
+            try {
+                jdbc.query("select member_id, username from member where username is not null",
+                        rs -> {
+                            members.put(rs.getLong(1), rs.getString(2));
+                        });
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    putDuringRebuild = null;
+                }
+                throw e;
+            }
+            rebuild(members);
+            log.info("회원 이름 색인 생성: {} 명 ({} ms)", members.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    void rebuild(Map<Long, String> members) {
+        Index rebuilt = new Index();
+        members.forEach(rebuilt::put);
+        synchronized (this) {
+            if (putDuringRebuild != null) {
+                putDuringRebuild.forEach(rebuilt::put);
+                putDuringRebuild = null;
+            }
+            index = rebuilt;
+        }
+    }
+
+    /**
+     * 이름에 query 가 들어있는 회원 id (대소문자 무시)
+     *
+     * @return 색인이 아직 없거나 후보가 max-candidates 를 넘으면 null (SQL 로 검색)
+     */
+    public Set<Long> search(String query) {
+        Index current = index;
+        if (current == null) {
+            return null;
+        }
+        return current.search(normalize(query), maxCandidates);
+    }
+
+    // 트랜잭션 안이면 커밋된 뒤에 반영 (롤백된 이름이 검색되지 않도록)
+    public void putAfterCommit(Long memberId, String username) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(memberId, username);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(memberId, username);
+            }
+        });
+    }
+
+    public synchronized void put(Long memberId, String username) {
+        if (memberId == null || username == null) {
+            return;
+        }
+        Index current = index;
+        if (current != null) {
+            current.put(memberId, username);
+        }
+        if (putDuringRebuild != null) {
+            putDuringRebuild.put(memberId, username);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 쓰기(put)는 MemberNameIndex 모니터 안에서만, 읽기(search)는 잠금 없이
+     */
+    private static class Index {
+
+        private final Map<Long, String> names = new ConcurrentHashMap<>();
+        private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+        void put(Long memberId, String username) {
+            String name = normalize(username);
+            String old = names.put(memberId, name);
+            if (old != null) {
+                for (String gram : grams(old)) {
+                    Set<Long> ids = postings.get(gram);
+                    if (ids != null) {
+                        ids.remove(memberId);
+                    }
+                }
+            }
+            for (String gram : grams(name)) {
+                postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(memberId);
+            }
+        }
+
+        Set<Long> search(String query, int maxCandidates) {
+            Set<Long> result = new HashSet<>();
+            if (query.length() < GRAM) {
+                for (Map.Entry<Long, String> entry : names.entrySet()) {
+                    if (entry.getValue().contains(query) && result.add(entry.getKey()) && result.size() > maxCandidates) {
+                        return null;
+                    }
+                }
+                return result;
+            }
+
+            // 가장 짧은 목록부터 돌면서 나머지 목록에 모두 있는지 확인
+            List<Set<Long>> lists = new ArrayList<>();
+            for (String gram : grams(query)) {
+                Set<Long> ids = postings.get(gram);
+                if (ids == null || ids.isEmpty()) {
+                    return result;
+                }
+                lists.add(ids);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+
+            for (Long memberId : lists.get(0)) {
+                if (!containsAll(lists, memberId)) {
+                    continue;
+                }
+                String name = names.get(memberId);
+                if (name != null && name.contains(query) && result.add(memberId) && result.size() > maxCandidates) {
+                    return null;
+                }
+            }
+            return result;
+        }
+
+        private boolean containsAll(List<Set<Long>> lists, Long memberId) {
+            for (int i = 1; i < lists.size(); i++) {
+                if (!lists.get(i).contains(memberId)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static Set<String> grams(String name) {
+            Set<String> grams = new HashSet<>();
+            for (int i = 0; i + GRAM <= name.length(); i++) {
+                grams.add(name.substring(i, i + GRAM));
+            }
+            return grams;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package jpabook.jpa.shop.member;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 회원 이름 중복 검사 앞단 필터
+ *
+ * 부연 설명
+ * - 가입하려는 이름이 필터에 없으면 DB 에도 없으므로 중복 조회를 건너뛴다 (대부분의 신규 가입)
+ * - 필터에 있으면(오탐 포함) existsByUsername 으로 확인한다
+ * - 기동이 끝나면(ApplicationReadyEvent, seed 이후) member 테이블의 이름을 모두 읽어 새로 만든다
+ *     - 만들기 전이거나, 다른 서버에서 가입한 이름은 필터에 없을 수 있다 -> member.username unique 제약이 막는다
+ * - 회원명 변경으로 쓰지 않게 된 이름은 지우지 않는다 (조회 한 번 더 할 뿐)
+ */
+@Slf4j
+@Component
+public class UsernameFilter {
+
+    private final JdbcTemplate jdbc;
+    private final double fpp;
+    private final long minCapacity;
+
+    private volatile BloomFilter filter; // null 이면 아직 만들기 전 -> 항상 DB 조회
+
+    public UsernameFilter(JdbcTemplate jdbc,
+                          @Value("${shop.member.username-filter.fpp:0.01}") double fpp,
+                          @Value("${shop.member.username-filter.min-capacity:100000}") long minCapacity) {
+        this.jdbc = jdbc;
+        this.fpp = fpp;
+        this.minCapacity = minCapacity;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Long count = jdbc.queryForObject("select count(*) from member", Long.class);
+        // 기동 후 가입이 늘어날 것을 감안해 2배로 잡는다, 넘으면 오탐(= 조회)만 늘어난다
+        BloomFilter rebuilt = BloomFilter.create(Math.max(minCapacity, count * 2), fpp);
+        jdbc.query("select username from member where username is not null", rs -> {
+            rebuilt.put(rs.getString(1));
+        });
+        filter = rebuilt;
+        log.info("회원 이름 필터 생성: {} 명 ({} ms)", count, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * @return false 면 확실히 없는 이름, true 면 DB 확인 필요
+     */
+    public boolean mightExist(String username) {
+        BloomFilter current = filter;
+        return current == null || username == null || current.mightContain(username);
+    }
+
+    public void add(String username) {
+        BloomFilter current = filter;
+        if (current != null && username != null) {
+            current.put(username);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package jpabook.jpa.shop.monitor;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Hibernate 2차 캐시 region 별 hit / miss 통계 (hibernate.generate_statistics=true 일 때만 쌓인다)
+ */
+@Component
+public class CacheStats {
+
+    private final Statistics statistics;
+
+    public CacheStats(EntityManagerFactory emf) {
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public List<RegionSnapshot> snapshot() {
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(region -> {
+                    CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+                    return regionStatistics == null ? null : RegionSnapshot.of(region, regionStatistics);
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        statistics.clear();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class RegionSnapshot {
+        private String region;
+        private long hits;
+        private long misses;
+        private long puts;
+        private double hitRatio;
+        private long entries; // 메모리에 있는 수, 알 수 없으면 -1
+
+        static RegionSnapshot of(String region, CacheRegionStatistics statistics) {
+            long hits = statistics.getHitCount();
+            long misses = statistics.getMissCount();
+            return new RegionSnapshot(
+                    region,
+                    hits,
+                    misses,
+                    statistics.getPutCount(),
+                    hits + misses == 0 ? 0 : (double) hits / (hits + misses),
+                    statistics.getElementCountInMemory());
+        }
+    }
+}
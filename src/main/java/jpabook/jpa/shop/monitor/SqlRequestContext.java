@@ -0,0 +1,77 @@
+package jpabook.jpa.shop.monitor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 요청 1건 동안 실행된 SQL 집계
+ * - 요청을 처리하는 스레드의 ThreadLocal 에 보관한다 (SqlStatementInterceptor 가 시작/종료)
+ * - 같은 모양(fingerprint)의 SQL 이 몇 번 실행됐는지 세어서 N + 1 을 찾는다
+ */
+public class SqlRequestContext {
+
+    private static final ThreadLocal<SqlRequestContext> CURRENT = new ThreadLocal<>();
+
+    private final String endpoint;
+    private final Map<String, Integer> fingerprintCounts = new HashMap<>();
+    private int statementCount;
+    private long jdbcNanos;
+
+    private SqlRequestContext(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    static SqlRequestContext start(String endpoint) {
+        SqlRequestContext context = new SqlRequestContext(endpoint);
+        CURRENT.set(context);
+        return context;
+    }
+
+    static SqlRequestContext current() {
+        return CURRENT.get();
+    }
+
+    static SqlRequestContext finish() {
+        SqlRequestContext context = CURRENT.get();
+        CURRENT.remove();
+        return context;
+    }
+
+    void record(String sql, long elapsedNanos) {
+        statementCount++;
+        jdbcNanos += elapsedNanos;
+        fingerprintCounts.merge(fingerprint(sql), 1, Integer::sum);
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public Map<String, Integer> getFingerprintCounts() {
+        return fingerprintCounts;
+    }
+
+    /**
+     * 바인딩 값만 다른 SQL 을 같은 모양으로 본다
+     * - 공백 정리, 문자열/숫자 리터럴 -> ?, IN (?, ?, ...) -> IN (?...)
+     */
+    static String fingerprint(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        return sql.trim()
+                .replaceAll("\\s+", " ")
+                .replaceAll("'(?:[^']|'')*'", "?")
+                .replaceAll("\\b\\d+\\b", "?")
+                .replaceAll("(?i)\\bin \\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)", "in (?...)")
+                .toLowerCase();
+    }
+}
@@ -0,0 +1,74 @@
+package jpabook.jpa.shop.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+/**
+ * 핸들러 메서드 단위로 SQL 집계를 시작/종료
+ * - afterCompletion 은 뷰 렌더링 이후에 호출되므로 OSIV 지연 로딩 SQL 까지 포함된다
+ * - 같은 모양의 SQL 이 한 요청에서 threshold 번을 넘게 실행되면 N + 1 로 보고 경고 로그
+ */
+@Component
+@Slf4j
+public class SqlStatementInterceptor implements AsyncHandlerInterceptor {
+
+    private final SqlStatementStats sqlStatementStats;
+    private final int nPlusOneThreshold;
+
+    public SqlStatementInterceptor(SqlStatementStats sqlStatementStats,
+                                   @Value("${shop.sql.n-plus-one-threshold:5}") int nPlusOneThreshold) {
+        this.sqlStatementStats = sqlStatementStats;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // 비동기 처리 결과를 돌려주는 재디스패치(ASYNC)는 같은 요청이므로 다시 세지 않는다
+        if (handler instanceof HandlerMethod && request.getDispatcherType() != DispatcherType.ASYNC) {
+            HandlerMethod handlerMethod = (HandlerMethod) handler;
+            SqlRequestContext.start(handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        complete();
+    }
+
+    // StreamingResponseBody 등 비동기 처리로 넘어가면 요청 스레드의 집계는 여기서 끝낸다 (비동기 스레드의 SQL 은 세지 않는다)
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        complete();
+    }
+
+    private void complete() {
+        SqlRequestContext context = SqlRequestContext.finish();
+        if (context == null) {
+            return;
+        }
+
+        String nPlusOne = null;
+        int repeated = 0;
+        for (Map.Entry<String, Integer> entry : context.getFingerprintCounts().entrySet()) {
+            if (entry.getValue() > nPlusOneThreshold && entry.getValue() > repeated) {
+                nPlusOne = entry.getKey();
+                repeated = entry.getValue();
+            }
+        }
+
+        if (nPlusOne != null) {
+            log.warn("N + 1 의심: {} - 같은 SQL {}회 실행 (전체 {}회) sql = {}",
+                    context.getEndpoint(), repeated, context.getStatementCount(), nPlusOne);
+        }
+        sqlStatementStats.add(context, nPlusOne);
+    }
+}
@@ -0,0 +1,24 @@
+package jpabook.jpa.shop.monitor;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy JDBC 이벤트 리스너
+ * - p6spy-spring-boot-starter 가 JdbcEventListener 타입 빈을 자동으로 등록한다
+ * - 요청 처리 중(SqlRequestContext 가 있는 스레드)에 실행된 SQL 만 집계, 그 외(시작 시 초기화, 비동기 스레드 등)는 무시
+ */
+@Component
+public class SqlStatementListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        SqlRequestContext context = SqlRequestContext.current();
+        if (context != null) {
+            context.record(statementInformation.getSql(), timeElapsedNanos);
+        }
+    }
+}
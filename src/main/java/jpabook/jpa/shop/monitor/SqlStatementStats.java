@@ -0,0 +1,85 @@
+package jpabook.jpa.shop.monitor;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 엔드포인트(핸들러 메서드)별 SQL 누적 통계
+ */
+@Component
+public class SqlStatementStats {
+
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    void add(SqlRequestContext context, String nPlusOneFingerprint) {
+        stats.computeIfAbsent(context.getEndpoint(), key -> new EndpointStats())
+             .add(context, nPlusOneFingerprint);
+    }
+
+    public List<EndpointSnapshot> snapshot() {
+        return stats.entrySet().stream()
+                .map(e -> e.getValue().toSnapshot(e.getKey()))
+                .sorted(Comparator.comparing(EndpointSnapshot::getEndpoint))
+                .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+
+    private static class EndpointStats {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder jdbcNanos = new LongAdder();
+        private final LongAccumulator maxStatements = new LongAccumulator(Long::max, 0);
+        private final LongAdder nPlusOneRequests = new LongAdder();
+        private volatile String lastNPlusOneFingerprint;
+
+        void add(SqlRequestContext context, String nPlusOneFingerprint) {
+            requests.increment();
+            statements.add(context.getStatementCount());
+            jdbcNanos.add(context.getJdbcNanos());
+            maxStatements.accumulate(context.getStatementCount());
+            if (nPlusOneFingerprint != null) {
+                nPlusOneRequests.increment();
+                lastNPlusOneFingerprint = nPlusOneFingerprint;
+            }
+        }
+
+        EndpointSnapshot toSnapshot(String endpoint) {
+            long requestCount = requests.sum();
+            long statementCount = statements.sum();
+            return new EndpointSnapshot(
+                    endpoint,
+                    requestCount,
+                    statementCount,
+                    requestCount == 0 ? 0 : (double) statementCount / requestCount,
+                    maxStatements.get(),
+                    jdbcNanos.sum() / 1_000_000.0,
+                    nPlusOneRequests.sum(),
+                    lastNPlusOneFingerprint);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class EndpointSnapshot {
+        private String endpoint;
+        private long requests;
+        private long statements;
+        private double avgStatementsPerRequest;
+        private long maxStatementsPerRequest;
+        private double totalJdbcMillis;
+        private long suspectedRequests;  // N + 1 의심 요청 수
+        private String lastSuspectedSql; // 마지막으로 N + 1 의심된 SQL 모양
+    }
+}
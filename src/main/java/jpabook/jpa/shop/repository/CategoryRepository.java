@@ -0,0 +1,82 @@
+package jpabook.jpa.shop.repository;
+
+import jpabook.jpa.shop.domain.item.Category;
+import jpabook.jpa.shop.domain.item.Item;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class CategoryRepository {
+
+    private final EntityManager em;
+
+    public void save(Category category) {
+        em.persist(category);
+    }
+
+    public Category findById(Long id) {
+        return em.find(Category.class, id);
+    }
+
+    /**
+     * 카테고리를 옮긴 뒤 그 아래 하위 카테고리들의 path 앞부분을 한 번에 바꾼다
+     * - 옮긴 카테고리 자신은 Category.addChildCategory 가 이미 바꿨다 (flush 후 벌크 update)
+     * - 벌크 update 는 영속성 컨텍스트를 거치지 않으므로 이후 같은 트랜잭션에서는 다시 조회해야 한다
+     *
+     * @return 바뀐 하위 카테고리 수
+     */
+    public int rewriteSubtreePaths(String oldPath, String newPath) {
+        if (oldPath == null || oldPath.equals(newPath)) {
+            return 0;
+        }
+        em.flush();
+        int updated = em.createQuery(
+                "update Category c" +
+                        " set c.path = concat(:newPath, substring(c.path, :from))" +
+                        " where c.path like :oldPrefix")
+                .setParameter("newPath", newPath)
+                .setParameter("from", oldPath.length() + 1)
+                .setParameter("oldPrefix", oldPath + "%")
+                .executeUpdate();
+        em.clear();
+        return updated;
+    }
+
+    /**
+     * path 아래(자기 포함) 모든 카테고리에 속한 상품 (페이지, 상품 id 순)
+     * - path like '/1/5/%' 는 idx_category_path range scan, category_item 은 idx_category_item_category 로 찾는다
+     * - 여러 하위 카테고리에 속한 상품은 한 번만 (in 서브쿼리)
+     */
+    public Page<Item> findItemsUnder(String path, Pageable pageable) {
+        List<Item> content = em.createQuery(
+                "select i from Item i" +
+                        " where i.id in (" +
+                        "   select ci.id from Category c join c.items ci" +
+                        "   where c.path like :prefix)" +
+                        " order by i.id", Item.class)
+                .setParameter("prefix", path + "%")
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> countItemsUnder(path));
+    }
+
+    public long countItemsUnder(String path) {
+        return em.createQuery(
+                "select count(i) from Item i" +
+                        " where i.id in (" +
+                        "   select ci.id from Category c join c.items ci" +
+                        "   where c.path like :prefix)", Long.class)
+                .setParameter("prefix", path + "%")
+                .getSingleResult();
+    }
+}
@@ -0,0 +1,64 @@
+package jpabook.jpa.shop.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * IN 절 파라미터 분할
+ *
+ * 부연 설명
+ * - where x in (:ids) 는 바인딩 개수마다 SQL 문자열이 달라져서, id 개수가 바뀔 때마다
+ *   Hibernate 쿼리 플랜과 DB prepared statement 를 새로 만든다
+ * - id 를 고정 크기(16, 64, 256) 묶음으로 자르고 모자란 자리는 마지막 id 로 채워서(padding)
+ *   SQL 모양을 3가지로 고정한다, 중복 id 는 IN 결과에 영향이 없다
+ */
+public final class InClauseChunks {
+
+    static final int[] CHUNK_SIZES = {16, 64, 256};
+    static final int MAX_CHUNK_SIZE = CHUNK_SIZES[CHUNK_SIZES.length - 1];
+
+    private InClauseChunks() {
+    }
+
+    /**
+     * @param ids : 중복이 있으면 제거 후 분할
+     * @return 크기가 CHUNK_SIZES 중 하나인 묶음 목록 (ids 가 비어있으면 빈 목록)
+     */
+    public static <T> List<List<T>> split(List<T> ids) {
+        List<T> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinct.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<List<T>> chunks = new ArrayList<>();
+        int from = 0;
+        while (distinct.size() - from > MAX_CHUNK_SIZE) {
+            chunks.add(distinct.subList(from, from + MAX_CHUNK_SIZE));
+            from += MAX_CHUNK_SIZE;
+        }
+        chunks.add(pad(distinct.subList(from, distinct.size())));
+        return chunks;
+    }
+
+    private static <T> List<T> pad(List<T> rest) {
+        int size = chunkSizeFor(rest.size());
+        List<T> padded = new ArrayList<>(size);
+        padded.addAll(rest);
+        T last = rest.get(rest.size() - 1);
+        while (padded.size() < size) {
+            padded.add(last);
+        }
+        return padded;
+    }
+
+    static int chunkSizeFor(int count) {
+        for (int size : CHUNK_SIZES) {
+            if (count <= size) {
+                return size;
+            }
+        }
+        return MAX_CHUNK_SIZE;
+    }
+}
@@ -1,17 +1,30 @@
 package jpabook.jpa.shop.repository;
 
+import jpabook.jpa.shop.catalog.ItemCatalog;
 import jpabook.jpa.shop.domain.item.Item;
+import jpabook.jpa.shop.exception.NotEnoughStockException;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.query.NativeQuery;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
 public class ItemRepository {
 
     private final EntityManager em;
+    private final ItemCatalog itemCatalog;
 
     public void save(Item item) {
         if (item.getId() == null) {
@@ -19,14 +32,140 @@ public class ItemRepository {
         } else {
             em.merge(item); // id 값이 존재하면, 해당 라인이 실행 됨
         }
+        itemCatalog.markChanged(item.getId());
     }
 
+    // 쿼리 캐시 (상품 추가 / 수정 시 무효화, 재고 변경은 목록의 id 를 바꾸지 않으므로 무효화하지 않는다)
+    // 목록 조회 전용: read-only 로 읽어서 dirty checking 용 스냅샷을 만들지 않는다 (받은 엔티티를 고쳐도 반영되지 않는다)
     public List<Item> findAll() {
         return em.createQuery("select i from Item i", Item.class)
+                 .setHint(QueryHints.HINT_CACHEABLE, true)
+                 .setHint(QueryHints.HINT_READONLY, true)
                  .getResultList();
     }
 
     public Item findById(Long id) {
         return em.find(Item.class, id);
     }
+
+    /**
+     * id 목록으로 상품 조회 (CategoryItemIndex 로 거른 한 페이지)
+     * - IN 절은 InClauseChunks 로 잘라서 SQL 모양을 고정한다
+     * - 목록 조회 전용이므로 read-only
+     *
+     * @return ids 순서대로 (없는 id 는 빠진다)
+     */
+    public List<Item> findAllByIds(List<Long> ids) {
+        Map<Long, Item> items = new HashMap<>();
+        for (List<Long> chunk : InClauseChunks.split(ids)) {
+            em.createQuery("select i from Item i where i.id in :ids", Item.class)
+                    .setParameter("ids", chunk)
+                    .setHint(QueryHints.HINT_READONLY, true)
+                    .getResultList()
+                    .forEach(i -> items.put(i.getId(), i));
+        }
+        return ids.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    // DB 조회 없이 프록시만 (연관관계 설정용)
+    public Item getReference(Long id) {
+        return em.getReference(Item.class, id);
+    }
+
+    /**
+     * 상품 가격을 IN 쿼리 한 번으로 조회
+     * - 엔티티로 올리지 않으므로 이후 재고 차감(벌크 update) 때 refresh 가 필요 없다
+     *
+     * @return 상품 id -> 가격 (없는 상품은 빠진다)
+     */
+    public Map<Long, Integer> findPrices(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return em.createQuery("select i.id, i.price from Item i where i.id in :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList().stream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> (Integer) row[1]));
+    }
+
+    /**
+     * 재고 차감 (조건부 update 한 번으로 처리)
+     *
+     * 부연 설명
+     * - Item.removeStock 처럼 읽고 -> 메모리에서 빼고 -> dirty checking 으로 쓰면, 동시 주문끼리 서로의 차감을 덮어쓴다(lost update)
+     * - DB 가 row lock 을 잡고 현재 값 기준으로 차감하므로 별도 락 없이도 안전하다
+     *
+     * @param itemId : [Long] 상품 id
+     * @param count  : [int]  차감 수량
+     * @throws NotEnoughStockException 재고가 부족해서 update 된 row 가 없을 때
+     */
+    public void decreaseStock(Long itemId, int count) {
+        int updated = stockUpdate(
+                "update item set stock_quantity = stock_quantity - :count" +
+                        " where item_id = :itemId and stock_quantity >= :count")
+                .setParameter("count", count)
+                .setParameter("itemId", itemId)
+                .executeUpdate();
+        if (updated == 0) {
+            throw new NotEnoughStockException("need more stock");
+        }
+        evictFromCache(itemId);
+        itemCatalog.markChanged(itemId);
+        refreshIfLoaded(itemId);
+    }
+
+    /**
+     * 재고 원복 (주문 취소)
+     */
+    public void increaseStock(Long itemId, int count) {
+        stockUpdate(
+                "update item set stock_quantity = stock_quantity + :count" +
+                        " where item_id = :itemId")
+                .setParameter("count", count)
+                .setParameter("itemId", itemId)
+                .executeUpdate();
+        evictFromCache(itemId);
+        itemCatalog.markChanged(itemId);
+        refreshIfLoaded(itemId);
+    }
+
+    /**
+     * 2차 캐시에서 상품 제거 (DB 를 직접 바꾼 경우, ex. StockLedger 의 JDBC 반영)
+     * - 지금 바로 한 번, 트랜잭션이 끝난 뒤 한 번 더 지운다
+     *     - 커밋 전에 다른 트랜잭션이 예전 값을 읽어 캐시에 다시 넣을 수 있다
+     *     - 롤백되면 refresh 로 캐시에 들어간 커밋 안 된 값을 지운다
+     */
+    public void evictFromCache(Long itemId) {
+        em.getEntityManagerFactory().getCache().evict(Item.class, itemId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    em.getEntityManagerFactory().getCache().evict(Item.class, itemId);
+                }
+            });
+        }
+    }
+
+    // JPQL 벌크 update 는 Item region 전체와 item 테이블 쿼리 캐시를 비운다 (주문 한 건마다 상품 캐시가 모두 날아감)
+    // 어떤 테이블도 건드리지 않는다고 알려주고("" query space), 바뀐 상품만 evictFromCache 로 지운다
+    // query space 를 지정하면 자동 flush 도 하지 않으므로, 아직 insert 안 된 상품이 있을 수 있어 직접 flush 한다
+    private NativeQuery<?> stockUpdate(String sql) {
+        em.flush();
+        return em.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("");
+    }
+
+    // 벌크 update 는 영속성 컨텍스트를 거치지 않는다
+    // 이미 로딩된 Item 이 예전 재고를 들고 있으면, 나중에 dirty checking 으로 그 값을 다시 써버리므로 새로 읽어둔다
+    private void refreshIfLoaded(Long itemId) {
+        Item item = em.getReference(Item.class, itemId); // 영속성 컨텍스트에 없으면 DB 조회 없이 프록시만 만든다
+        if (em.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(item)) {
+            em.refresh(item);
+        }
+    }
 }
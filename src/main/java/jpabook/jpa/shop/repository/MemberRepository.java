@@ -2,10 +2,31 @@ package jpabook.jpa.shop.repository;
 
 import jpabook.jpa.shop.domain.Member;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 
 public interface MemberRepository extends JpaRepository<Member, Long> {
 
     List<Member> findByUsername(String username);
+
+    // 엔티티를 만들지 않고 존재 여부만 (uk_member_username 인덱스)
+    boolean existsByUsername(String username);
+
+    // 이미 있는 이름만 (회원 일괄 등록 중복 검사, IN 절은 InClauseChunks 로 잘라서 호출)
+    @Query("select m.username from Member m where m.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    // 쿼리 캐시 (회원 가입 / 수정 시 무효화), 회원 엔티티는 2차 캐시에서 꺼낸다
+    // 목록 조회 전용: read-only 로 읽어서 스냅샷을 만들지 않는다 (수정은 findById 로 다시 읽어서)
+    @Override
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    List<Member> findAll();
 }
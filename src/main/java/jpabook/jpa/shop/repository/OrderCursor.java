@@ -0,0 +1,80 @@
+package jpabook.jpa.shop.repository;
+
+import jpabook.jpa.shop.domain.Order;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 주문 목록 keyset(seek) 페이징 커서
+ *
+ * 부연 설명
+ * - offset 페이징은 앞 페이지의 row를 모두 읽고 버리기 때문에 깊은 페이지일수록 느려진다
+ * - 마지막으로 내려준 row의 정렬 키(order_id 또는 orderDate + order_id)를 기억해 두고,
+ *   다음 페이지는 인덱스를 타고 그 뒤부터 바로 읽는다
+ * - 클라이언트에게는 내부 구조를 알 수 없는 opaque 토큰(Base64 URL-safe)으로 전달한다
+ */
+@Getter
+public class OrderCursor {
+
+    public enum Sort {
+        ID, ORDER_DATE
+    }
+
+    private static final String DELIMITER = "|";
+
+    // 첫 페이지도 seek 조건을 걸어야 옵티마이저가 전체 정렬 없이 인덱스 순서대로 읽는다
+    private static final long FIRST_ORDER_ID = 0L;
+    private static final LocalDateTime FIRST_ORDER_DATE = LocalDateTime.of(1900, 1, 1, 0, 0);
+
+    private final Sort sort;
+    private final Long lastOrderId;
+    private final LocalDateTime lastOrderDate; // ORDER_DATE 정렬에서만 사용
+
+    private OrderCursor(Sort sort, Long lastOrderId, LocalDateTime lastOrderDate) {
+        this.sort = sort;
+        this.lastOrderId = lastOrderId;
+        this.lastOrderDate = lastOrderDate;
+    }
+
+    // 첫 페이지 커서
+    public static OrderCursor first(Sort sort) {
+        return new OrderCursor(sort, FIRST_ORDER_ID, FIRST_ORDER_DATE);
+    }
+
+    // 마지막으로 내려준 주문 다음부터 읽는 커서
+    public static OrderCursor after(Sort sort, Order last) {
+        return new OrderCursor(sort, last.getId(), sort == Sort.ORDER_DATE ? last.getOrderDate() : null);
+    }
+
+    public String encode() {
+        String raw = sort.name() + DELIMITER + lastOrderId
+                + (sort == Sort.ORDER_DATE ? DELIMITER + lastOrderDate : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 토큰 복원
+     *
+     * @param token : [String] encode()로 만든 토큰
+     * @throws IllegalArgumentException 형식이 맞지 않는 토큰
+     */
+    public static OrderCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + DELIMITER);
+            Sort sort = Sort.valueOf(parts[0]);
+            Long lastOrderId = Long.valueOf(parts[1]);
+
+            if (sort == Sort.ORDER_DATE) {
+                return new OrderCursor(sort, lastOrderId, LocalDateTime.parse(parts[2]));
+            }
+            return new OrderCursor(sort, lastOrderId, null);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("잘못된 커서 입니다. cursor = " + token, e);
+        }
+    }
+}
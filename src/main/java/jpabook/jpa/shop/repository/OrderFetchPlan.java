@@ -0,0 +1,28 @@
+package jpabook.jpa.shop.repository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 주문 조회 용도별 fetch plan (Order 의 @NamedEntityGraph)
+ *
+ * 부연 설명
+ * - open-in-view 를 끄면 트랜잭션 밖(컨트롤러, 직렬화)에서는 지연 로딩이 안 되므로,
+ *   화면 / API 가 쓰는 연관관계를 조회할 때 정해서 한 번에 읽는다
+ * - SUMMARY                 : 주문 + 회원 + 배송 (쿼리 1번)
+ * - WITH_ITEMS              : + 주문상품 (쿼리 1번 + 주문 256건마다 1번)
+ * - WITH_ITEMS_AND_PRODUCTS : + 주문상품의 상품 (WITH_ITEMS 와 같은 횟수)
+ * - 컬렉션(orderItems)을 페이징 쿼리에 같이 fetch 하면 메모리에서 페이징하므로,
+ *   주문은 SUMMARY 로 먼저 읽고 주문상품은 id IN 으로 따로 채운다 (OrderRepository)
+ */
+@Getter
+@RequiredArgsConstructor
+public enum OrderFetchPlan {
+
+    SUMMARY("Order.summary", false),
+    WITH_ITEMS("Order.withItems", true),
+    WITH_ITEMS_AND_PRODUCTS("Order.withItemsAndProducts", true);
+
+    private final String graphName;
+    private final boolean withItems;
+}
@@ -1,39 +1,65 @@
 package jpabook.jpa.shop.repository;
 
+import com.querydsl.core.types.Projections;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jpabook.jpa.shop.domain.Order;
 import jpabook.jpa.shop.domain.OrderStatus;
 import jpabook.jpa.shop.domain.QMember;
 import jpabook.jpa.shop.domain.QOrder;
+import jpabook.jpa.shop.domain.QOrderItem;
+import jpabook.jpa.shop.member.MemberNameIndex;
+import jpabook.jpa.shop.repository.order.query.OrderListDto;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.graph.GraphSemantic;
+import org.hibernate.jpa.QueryHints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
 
 import static jpabook.jpa.shop.domain.QMember.member;
 import static jpabook.jpa.shop.domain.QOrder.order;
+import static jpabook.jpa.shop.domain.QOrderItem.orderItem;
+import static jpabook.jpa.shop.domain.item.QItem.item;
 
 @Repository
 public class OrderRepository {
 
+    private static final String FETCH_GRAPH = GraphSemantic.FETCH.getJpaHintName(); // javax.persistence.fetchgraph
+
     private final EntityManager em;
     private final JPAQueryFactory query;
+    private final MemberNameIndex memberNameIndex;
 
     /**
      * QueryDSL 사용을 위해 아래와 같이 생성자를 따로 뺀다
      * @param em
      */
-    public OrderRepository(EntityManager em) {
+    public OrderRepository(EntityManager em, MemberNameIndex memberNameIndex) {
         this.em = em;
         this.query = new JPAQueryFactory(em);
+        this.memberNameIndex = memberNameIndex;
     }
 
     public void save(Order order) {
@@ -44,7 +70,41 @@ public class OrderRepository {
         return em.find(Order.class, id);
     }
 
+    /**
+     * 주문 상태 전이 (조건부 update 한 번으로 처리)
+     * - 같은 주문을 동시에 / 두 번 바꿔도 from 상태인 row 는 하나뿐이므로 한 번만 성공한다 (뒤에 온 쪽은 row lock 을 기다렸다가 0건)
+     *
+     * @return from 상태였던 주문을 바꿨으면 true
+     */
+    public boolean changeStatus(Long id, OrderStatus from, OrderStatus to) {
+        em.flush();
+        return em.createQuery(
+                "update Order o set o.status = :to" +
+                        " where o.id = :id and o.status = :from")
+                .setParameter("to", to)
+                .setParameter("id", id)
+                .setParameter("from", from)
+                .executeUpdate() == 1;
+    }
+
+    /**
+     * 주문 단건 (fetch plan 의 연관관계까지 쿼리 1번)
+     */
+    @Transactional(readOnly = true)
+    public Order findById(Long id, OrderFetchPlan plan) {
+        return em.find(Order.class, id, Map.of(FETCH_GRAPH, em.getEntityGraph(plan.getGraphName())));
+    }
+
     public List<Order> findAllByString(OrderSearch orderSearch) {
+        return findAllByString(orderSearch, OrderFetchPlan.SUMMARY);
+    }
+
+    /**
+     * 문자열 JPQL 검색 + fetch plan
+     * - 주문(최대 1000건)은 SUMMARY graph 로, 주문상품은 plan 에 따라 따로 채운다 (fetchItems)
+     */
+    @Transactional(readOnly = true)
+    public List<Order> findAllByString(OrderSearch orderSearch, OrderFetchPlan plan) {
 
         String jpql = "select o from Order o join o.member m";
         boolean isFirstCondition = true;
@@ -68,20 +128,21 @@ public class OrderRepository {
             } else {
                 jpql += " and";
             }
-            jpql += " m.username like :username";
+            jpql += " lower(m.username) like :username";
         }
 
         TypedQuery<Order> query = em.createQuery(jpql, Order.class)
+                .setHint(FETCH_GRAPH, em.getEntityGraph(OrderFetchPlan.SUMMARY.getGraphName()))
                 .setMaxResults(1000);
 
         if (orderSearch.getOrderStatus() != null) {
             query = query.setParameter("status", orderSearch.getOrderStatus());
         }
         if (StringUtils.hasText(orderSearch.getMemberName())) {
-            query = query.setParameter("username", orderSearch.getMemberName());
+            query = query.setParameter("username", "%" + orderSearch.getMemberName().toLowerCase(Locale.ROOT) + "%");
         }
 
-        return query.getResultList();
+        return fetchItems(query.getResultList(), plan);
     }
 
     /**
@@ -103,7 +164,7 @@ public class OrderRepository {
         //회원 이름 검색
         if (StringUtils.hasText(orderSearch.getMemberName())) {
             Predicate name =
-                    cb.like(m.<String>get("username"), "%" + orderSearch.getMemberName() + "%");
+                    cb.like(cb.lower(m.<String>get("username")), "%" + orderSearch.getMemberName().toLowerCase(Locale.ROOT) + "%");
             criteria.add(name);
         }
 
@@ -113,25 +174,207 @@ public class OrderRepository {
     }
 
     /**
-     * 20220528 QueryDSL 사용
-     * @param orderSearch
-     * @return
+     * 주문 검색 (페이지) - 최근 주문부터
+     * - 내용: SUMMARY graph(회원, 배송) + order by o.id desc + offset / limit, 주문상품은 plan 에 따라 따로 채운다
+     * - 전체 건수: total 로 따로 센다 (보통 count(orderSearch))
+     *     - 첫 페이지가 size 보다 적게 나오거나 마지막 페이지면 내용만으로 알 수 있으므로 세지 않는다
+     * - 회원 이름은 부분 일치(대소문자 무시), memberCondition 참고
+     *     - MemberNameIndex 로 회원 id 를 먼저 찾고 orders.member_id 인덱스로 주문만 조회 (member 전체를 like 로 훑지 않는다)
+     *     - chunk 별로 나눠 읽으면 offset 을 맞출 수 없으므로 member_id in (chunk) or member_id in (chunk) ... 로 한 번에 조회한다
+     *     - 색인이 아직 없거나 후보 회원이 너무 많으면 like '%name%' 로 조회
+     *
+     * - 목록 조회 전용이므로 read-only 로 읽는다 (스냅샷 없음, 받은 주문을 고쳐도 반영되지 않는다)
+     *
+     * @param plan  : [OrderFetchPlan] 함께 읽을 연관관계
+     * @param total : [LongSupplier] 전체 건수, 필요할 때만 호출된다
      */
-    public List<Order> findAll(OrderSearch orderSearch) {
-        return query
+    @Transactional(readOnly = true)
+    public Page<Order> findAll(OrderSearch orderSearch, Pageable pageable, OrderFetchPlan plan, LongSupplier total) {
+        MemberCondition memberCondition = memberCondition(orderSearch.getMemberName());
+        if (memberCondition.noMatch) {
+            return Page.empty(pageable);
+        }
+
+        JPAQuery<Order> content = query
                 .select(order)
+                .from(order);
+        if (memberCondition.joinMember) {
+            content.join(order.member, member);
+        }
+        List<Order> orders = content
+                .where(statusEq(orderSearch.getOrderStatus()), memberCondition.predicate)
+                .orderBy(order.id.desc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .setHint(FETCH_GRAPH, em.getEntityGraph(OrderFetchPlan.SUMMARY.getGraphName()))
+                .setHint(QueryHints.HINT_READONLY, true)
+                .fetch();
+        return PageableExecutionUtils.getPage(fetchItems(orders, plan), pageable, total);
+    }
+
+    /**
+     * 주문 목록 화면용 검색 (페이지) - findAll(OrderSearch, Pageable, OrderFetchPlan, LongSupplier) 와 같은 조건 / 정렬
+     * - 엔티티 대신 화면 컬럼만 projection 으로 한 번에 조회 (렌더링 중 지연 로딩 없음)
+     * - 대표상품(첫 번째 주문상품)은 주문별 min(order_item_id) 로 고른다 (left join 의 on 조건, 주문상품이 없는 주문도 빠지지 않는다)
+     */
+    public Page<OrderListDto> findListPage(OrderSearch orderSearch, Pageable pageable, LongSupplier total) {
+        MemberCondition memberCondition = memberCondition(orderSearch.getMemberName());
+        if (memberCondition.noMatch) {
+            return Page.empty(pageable);
+        }
+
+        List<OrderListDto> content = listQuery()
+                .where(statusEq(orderSearch.getOrderStatus()), memberCondition.predicate)
+                .orderBy(order.id.desc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+        return PageableExecutionUtils.getPage(content, pageable, total);
+    }
+
+    /**
+     * id 목록으로 주문 목록 화면 조회 (OrderSearchCache 에 캐시된 검색 결과)
+     *
+     * @return ids 순서대로 (없는 id 는 빠진다)
+     */
+    public List<OrderListDto> findListByIds(List<Long> ids) {
+        Map<Long, OrderListDto> rows = new HashMap<>();
+        for (List<Long> chunk : InClauseChunks.split(ids)) {
+            listQuery()
+                    .where(order.id.in(chunk))
+                    .fetch()
+                    .forEach(row -> rows.put(row.getOrderId(), row));
+        }
+        return ids.stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private JPAQuery<OrderListDto> listQuery() {
+        QOrderItem first = new QOrderItem("first");
+        return query
+                .select(Projections.constructor(OrderListDto.class,
+                        order.id, member.username, item.name, orderItem.orderPrice, orderItem.count,
+                        order.status, order.orderDate))
                 .from(order)
                 .join(order.member, member)
-                .where(statusEq(orderSearch.getOrderStatus()), nameLike(orderSearch.getMemberName()))
-                .limit(1000)
-                .fetch();
+                .leftJoin(order.orderItems, orderItem).on(orderItem.id.eq( // 대표상품 조건은 on 에 (주문상품이 없는 주문도 한 줄)
+                        JPAExpressions.select(first.id.min())
+                                .from(first)
+                                .where(first.order.eq(order))))
+                .leftJoin(orderItem.item, item);
+    }
+
+    /**
+     * 검색 조건에 맞는 주문 수
+     * - fetch join / 정렬 없이 orders 만 센다
+     * - member 는 색인이 없어서 이름을 like 로 찾아야 할 때만 join 한다 (색인이 있으면 orders.member_id 로 충분)
+     */
+    public long count(OrderSearch orderSearch) {
+        MemberCondition memberCondition = memberCondition(orderSearch.getMemberName());
+        if (memberCondition.noMatch) {
+            return 0;
+        }
+
+        JPAQuery<Long> count = query
+                .select(order.count())
+                .from(order);
+        if (memberCondition.joinMember) {
+            count.join(order.member, member);
+        }
+        Long total = count
+                .where(statusEq(orderSearch.getOrderStatus()), memberCondition.predicate)
+                .fetchOne();
+        return total == null ? 0 : total;
     }
 
-    private BooleanExpression nameLike(String memberName) {
+    private MemberCondition memberCondition(String memberName) {
         if (!StringUtils.hasText(memberName)) {
-            return null;
+            return MemberCondition.NONE;
+        }
+
+        Set<Long> memberIds = memberNameIndex.search(memberName);
+        if (memberIds == null) {
+            return new MemberCondition(nameContains(memberName), true, false);
+        }
+        if (memberIds.isEmpty()) {
+            return MemberCondition.NO_MATCH;
+        }
+
+        List<BooleanExpression> chunks = new ArrayList<>();
+        for (List<Long> chunk : InClauseChunks.split(new ArrayList<>(memberIds))) {
+            chunks.add(order.member.id.in(chunk));
+        }
+        return new MemberCondition(Expressions.anyOf(chunks.toArray(new BooleanExpression[0])), false, false);
+    }
+
+    /**
+     * 회원 이름 조건
+     * - predicate: where 에 넣을 조건 (null 이면 이름 조건 없음)
+     * - joinMember: predicate 가 member 컬럼을 쓰는지 (count 에서 join 여부)
+     * - noMatch: 이름에 맞는 회원이 없음 (쿼리 없이 빈 결과)
+     */
+    @RequiredArgsConstructor
+    private static class MemberCondition {
+        static final MemberCondition NONE = new MemberCondition(null, false, false);
+        static final MemberCondition NO_MATCH = new MemberCondition(null, false, true);
+
+        private final BooleanExpression predicate;
+        private final boolean joinMember;
+        private final boolean noMatch;
+    }
+
+    /**
+     * id 목록으로 주문 조회 (OrderSearchCache 에 캐시된 검색 결과)
+     * - IN 절은 InClauseChunks 로 잘라서 SQL 모양을 고정한다
+     * - findAll(OrderSearch, Pageable, OrderFetchPlan, LongSupplier) 처럼 read-only 로 읽는다
+     *
+     * @return ids 순서대로 (없는 id 는 빠진다)
+     */
+    @Transactional(readOnly = true)
+    public List<Order> findAllByIds(List<Long> ids, OrderFetchPlan plan) {
+        Map<Long, Order> orders = new HashMap<>();
+        for (List<Long> chunk : InClauseChunks.split(ids)) {
+            em.createQuery(
+                    "select o from Order o" +
+                            " where o.id in :ids", Order.class)
+                    .setParameter("ids", chunk)
+                    .setHint(FETCH_GRAPH, em.getEntityGraph(OrderFetchPlan.SUMMARY.getGraphName()))
+                    .setHint(QueryHints.HINT_READONLY, true)
+                    .getResultList()
+                    .forEach(o -> orders.put(o.getId(), o));
+        }
+        List<Order> result = ids.stream()
+                .map(orders::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return fetchItems(result, plan);
+    }
+
+    /**
+     * plan 이 주문상품을 포함하면, 이미 읽은 주문들의 주문상품(+상품)을 주문 id IN 으로 채운다
+     * - 같은 영속성 컨텍스트에 있는 주문의 orderItems 컬렉션이 초기화된다 (반환값은 버린다)
+     * - 주문 256건마다 쿼리 1번, 호출하는 쪽은 같은 트랜잭션 안이어야 한다
+     */
+    private List<Order> fetchItems(List<Order> orders, OrderFetchPlan plan) {
+        if (!plan.isWithItems() || orders.isEmpty()) {
+            return orders;
+        }
+        List<Long> ids = orders.stream().map(Order::getId).collect(Collectors.toList());
+        for (List<Long> chunk : InClauseChunks.split(ids)) {
+            em.createQuery(
+                    "select distinct o from Order o" +
+                            " where o.id in :ids", Order.class)
+                    .setParameter("ids", chunk)
+                    .setHint(FETCH_GRAPH, em.getEntityGraph(plan.getGraphName()))
+                    .getResultList();
         }
-        return member.username.like(memberName);
+        return orders;
+    }
+
+    private BooleanExpression nameContains(String memberName) {
+        return member.username.containsIgnoreCase(memberName);
     }
 
     private BooleanExpression statusEq(OrderStatus statusCondition) {
@@ -167,6 +410,23 @@ public class OrderRepository {
                 .getResultList();
     }
 
+    /**
+     * offset 페이징 + fetch plan
+     * - 주문 + 회원 + 배송은 findAllWithMemberDelivery(offset, limit) 그대로, 주문상품은 plan 에 따라 따로 채운다
+     */
+    @Transactional(readOnly = true)
+    public List<Order> findAllWithMemberDelivery(int offset, int limit, OrderFetchPlan plan) {
+        return fetchItems(findAllWithMemberDelivery(offset, limit), plan);
+    }
+
+    /**
+     * keyset 페이징 + fetch plan (findAllWithMemberDelivery(OrderCursor, int) 참고)
+     */
+    @Transactional(readOnly = true)
+    public List<Order> findAllWithMemberDelivery(OrderCursor cursor, int limit, OrderFetchPlan plan) {
+        return fetchItems(findAllWithMemberDelivery(cursor, limit), plan);
+    }
+
     // join fetch -> Order + Member + Delivery only and pagination
     public List<Order> findAllWithMemberDelivery(int offset, int limit) {
 //        return em.createQuery(
@@ -184,4 +444,39 @@ public class OrderRepository {
                 .getResultList();
     }
 
+    /**
+     * join fetch -> Order + Member + Delivery keyset(seek) pagination
+     * - offset 방식과 달리 앞 페이지 row를 읽고 버리지 않는다
+     * - ID 정렬은 PK 인덱스, ORDER_DATE 정렬은 (order_date, order_id) 인덱스를 탄다
+     *
+     * @param cursor : [OrderCursor] 첫 페이지는 OrderCursor.first(sort)
+     * @param limit  : [int] 가져올 최대 건수
+     */
+    public List<Order> findAllWithMemberDelivery(OrderCursor cursor, int limit) {
+        if (cursor.getSort() == OrderCursor.Sort.ORDER_DATE) {
+            // 앞의 o.orderDate >= :lastOrderDate 조건이 있어야 (order_date, order_id) 인덱스 range scan 이 가능하다 (OR 만 있으면 full scan)
+            return em.createQuery(
+                    "select o from Order o" +
+                            " join fetch o.member m" +
+                            " join fetch o.delivery d" +
+                            " where o.orderDate >= :lastOrderDate" +
+                            " and (o.orderDate > :lastOrderDate or o.id > :lastOrderId)" +
+                            " order by o.orderDate, o.id", Order.class)
+                    .setParameter("lastOrderDate", cursor.getLastOrderDate())
+                    .setParameter("lastOrderId", cursor.getLastOrderId())
+                    .setMaxResults(limit)
+                    .getResultList();
+        }
+
+        return em.createQuery(
+                "select o from Order o" +
+                        " join fetch o.member m" +
+                        " join fetch o.delivery d" +
+                        " where o.id > :lastOrderId" +
+                        " order by o.id", Order.class)
+                .setParameter("lastOrderId", cursor.getLastOrderId())
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
 }
@@ -0,0 +1,25 @@
+package jpabook.jpa.shop.repository.item.query;
+
+import lombok.Data;
+
+/**
+ * 음반(Album, dtype = 'A') 조회용 - 공통 컬럼 + 음반 컬럼만
+ */
+@Data
+public class AlbumDto {
+    private Long id;
+    private String name;
+    private int price;
+    private int stockQuantity;
+    private String artist;
+    private String etc;
+
+    public AlbumDto(Long id, String name, int price, int stockQuantity, String artist, String etc) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+        this.artist = artist;
+        this.etc = etc;
+    }
+}
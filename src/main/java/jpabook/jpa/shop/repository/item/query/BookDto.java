@@ -0,0 +1,25 @@
+package jpabook.jpa.shop.repository.item.query;
+
+import lombok.Data;
+
+/**
+ * 도서(Book, dtype = 'B') 조회용 - 공통 컬럼 + 도서 컬럼만
+ */
+@Data
+public class BookDto {
+    private Long id;
+    private String name;
+    private int price;
+    private int stockQuantity;
+    private String author;
+    private String isbn;
+
+    public BookDto(Long id, String name, int price, int stockQuantity, String author, String isbn) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+        this.author = author;
+        this.isbn = isbn;
+    }
+}
@@ -0,0 +1,85 @@
+package jpabook.jpa.shop.repository.item.query;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * 상품 하위 타입별 조회 (SINGLE_TABLE)
+ *
+ * 부연 설명
+ * - from Item 으로 읽으면 음반 / 영화 row 까지, 모든 하위 타입 컬럼을 읽어서 엔티티를 만든다
+ * - from Book 처럼 하위 타입 엔티티로 조회하면 Hibernate 가 where dtype = 'B' 를 붙이고,
+ *   select new 로 그 타입의 컬럼만 DTO 로 읽는다 (영속성 컨텍스트에 올라가지 않는다)
+ * - 목록은 상품 id 순, idx_item_dtype(dtype, item_id) 로 정렬 없이 해당 타입 row 만 읽는다 (count 도 같은 인덱스)
+ */
+@Repository
+@RequiredArgsConstructor
+public class ItemQueryRepository {
+
+    private static final String BOOK_SELECT =
+            "select new jpabook.jpa.shop.repository.item.query.BookDto(b.id, b.name, b.price, b.stockQuantity, b.author, b.isbn)" +
+                    " from Book b";
+    private static final String ALBUM_SELECT =
+            "select new jpabook.jpa.shop.repository.item.query.AlbumDto(a.id, a.name, a.price, a.stockQuantity, a.artist, a.etc)" +
+                    " from Album a";
+    private static final String MOVIE_SELECT =
+            "select new jpabook.jpa.shop.repository.item.query.MovieDto(m.id, m.name, m.price, m.stockQuantity, m.director, m.actor)" +
+                    " from Movie m";
+
+    private final EntityManager em;
+
+    public Page<BookDto> findBooks(Pageable pageable) {
+        return page(BOOK_SELECT + " order by b.id", "select count(b) from Book b", BookDto.class, pageable);
+    }
+
+    public Page<AlbumDto> findAlbums(Pageable pageable) {
+        return page(ALBUM_SELECT + " order by a.id", "select count(a) from Album a", AlbumDto.class, pageable);
+    }
+
+    public Page<MovieDto> findMovies(Pageable pageable) {
+        return page(MOVIE_SELECT + " order by m.id", "select count(m) from Movie m", MovieDto.class, pageable);
+    }
+
+    /**
+     * @return 없거나 도서가 아니면 null
+     */
+    public BookDto findBook(Long id) {
+        return single(BOOK_SELECT + " where b.id = :id", BookDto.class, id);
+    }
+
+    /**
+     * @return 없거나 음반이 아니면 null
+     */
+    public AlbumDto findAlbum(Long id) {
+        return single(ALBUM_SELECT + " where a.id = :id", AlbumDto.class, id);
+    }
+
+    /**
+     * @return 없거나 영화가 아니면 null
+     */
+    public MovieDto findMovie(Long id) {
+        return single(MOVIE_SELECT + " where m.id = :id", MovieDto.class, id);
+    }
+
+    private <T> Page<T> page(String query, String countQuery, Class<T> type, Pageable pageable) {
+        List<T> content = em.createQuery(query, type)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> em.createQuery(countQuery, Long.class).getSingleResult());
+    }
+
+    private <T> T single(String query, Class<T> type, Long id) {
+        List<T> result = em.createQuery(query, type)
+                .setParameter("id", id)
+                .getResultList();
+        return result.isEmpty() ? null : result.get(0);
+    }
+}
@@ -0,0 +1,25 @@
+package jpabook.jpa.shop.repository.item.query;
+
+import lombok.Data;
+
+/**
+ * 영화(Movie, dtype = 'M') 조회용 - 공통 컬럼 + 영화 컬럼만
+ */
+@Data
+public class MovieDto {
+    private Long id;
+    private String name;
+    private int price;
+    private int stockQuantity;
+    private String director;
+    private String actor;
+
+    public MovieDto(Long id, String name, int price, int stockQuantity, String director, String actor) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+        this.director = director;
+        this.actor = actor;
+    }
+}
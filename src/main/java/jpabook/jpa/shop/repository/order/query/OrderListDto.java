@@ -0,0 +1,32 @@
+package jpabook.jpa.shop.repository.order.query;
+
+import jpabook.jpa.shop.domain.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문 목록 화면(order/orderList.html) 한 줄
+ * - 화면에 그리는 컬럼만 담는다, 대표상품은 주문의 첫 번째 주문상품 (주문상품이 없으면 대표상품 컬럼은 null)
+ */
+@Data
+public class OrderListDto {
+    private Long orderId;
+    private String username;
+    private String itemName;   // 대표상품 이름
+    private Integer orderPrice; // 대표상품 주문가격
+    private Integer count;      // 대표상품 주문수량
+    private OrderStatus status;
+    private LocalDateTime orderDate;
+
+    public OrderListDto(Long orderId, String username, String itemName, Integer orderPrice, Integer count,
+                        OrderStatus status, LocalDateTime orderDate) {
+        this.orderId = orderId;
+        this.username = username;
+        this.itemName = itemName;
+        this.orderPrice = orderPrice;
+        this.count = count;
+        this.status = status;
+        this.orderDate = orderDate;
+    }
+}
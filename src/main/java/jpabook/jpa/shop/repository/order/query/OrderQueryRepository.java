@@ -1,21 +1,68 @@
 package jpabook.jpa.shop.repository.order.query;
 
-import lombok.RequiredArgsConstructor;
+import jpabook.jpa.shop.repository.InClauseChunks;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PreDestroy;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Repository
-@RequiredArgsConstructor
 @Slf4j
 public class OrderQueryRepository {
 
+    private static final String ORDER_ITEMS_IN_QUERY =
+            "select new jpabook.jpa.shop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
+                    " from OrderItem oi" +
+                    " join oi.item i" +
+                    " where oi.order.id in :orderIds";
+
     private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final ExecutorService chunkExecutor; // null 이면 IN 묶음을 순서대로 조회
+
+    /**
+     * @param chunkParallelism : IN 묶음을 동시에 조회할 스레드(커넥션) 수, 1 이하면 순차 조회
+     */
+    public OrderQueryRepository(EntityManager em, EntityManagerFactory emf,
+                                @Value("${shop.query.in-chunk-parallelism:1}") int chunkParallelism) {
+        this.em = em;
+        this.emf = emf;
+        this.chunkExecutor = chunkParallelism > 1 ? Executors.newFixedThreadPool(chunkParallelism, chunkThreadFactory()) : null;
+    }
+
+    private static ThreadFactory chunkThreadFactory() {
+        AtomicInteger seq = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "order-item-chunk-" + seq.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (chunkExecutor != null) {
+            chunkExecutor.shutdown();
+        }
+    }
 
     public List<OrderQueryDto> findOrderQueryDtos() {
         List<OrderQueryDto> result = findOrders(); // 2 orders
@@ -57,20 +104,53 @@ public class OrderQueryRepository {
         return result;
     }
 
+    /**
+     * 주문 id 목록의 주문 상품을 주문 id 별로 묶어서 조회
+     * - id 를 고정 크기 묶음(InClauseChunks)으로 잘라서 조회하므로 id 개수와 상관없이 SQL 모양이 3가지로 고정된다
+     * - shop.query.in-chunk-parallelism > 1 이면 묶음마다 별도 EntityManager(커넥션)로 동시에 조회
+     *   (호출한 쪽 트랜잭션 밖에서 읽으므로, 아직 flush/commit 안 된 변경은 보이지 않는다)
+     */
     private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
-        List<OrderItemQueryDto> orderItems = em.createQuery(
-                                                      "select new jpabook.jpa.shop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
-                                                              " from OrderItem oi" +
-                                                              " join oi.item i" +
-                                                              " where oi.order.id in :orderIds", OrderItemQueryDto.class)
-                                              .setParameter("orderIds", orderIds)
-                                              .getResultList();
-
-        Map<Long, List<OrderItemQueryDto>> orderItemMap =
-                orderItems.stream().collect(Collectors.groupingBy(orderItemQueryDto -> orderItemQueryDto.getOrderId())); // 스트림의 요소를 특정 값을 기준으로 그룹화
+        List<List<Long>> chunks = InClauseChunks.split(orderIds);
+
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = new HashMap<>();
+        if (chunkExecutor == null || chunks.size() < 2) {
+            for (List<Long> chunk : chunks) {
+                groupByOrderId(findOrderItems(em, chunk), orderItemMap);
+            }
+            return orderItemMap;
+        }
+
+        List<CompletableFuture<List<OrderItemQueryDto>>> futures = chunks.stream()
+                .map(chunk -> CompletableFuture.supplyAsync(() -> findOrderItemsInNewEntityManager(chunk), chunkExecutor))
+                .collect(Collectors.toList());
+        for (CompletableFuture<List<OrderItemQueryDto>> future : futures) {
+            groupByOrderId(future.join(), orderItemMap);
+        }
         return orderItemMap;
     }
 
+    private List<OrderItemQueryDto> findOrderItemsInNewEntityManager(List<Long> chunk) {
+        EntityManager chunkEm = emf.createEntityManager();
+        try {
+            return findOrderItems(chunkEm, chunk);
+        } finally {
+            chunkEm.close();
+        }
+    }
+
+    private List<OrderItemQueryDto> findOrderItems(EntityManager entityManager, List<Long> orderIds) {
+        return entityManager.createQuery(ORDER_ITEMS_IN_QUERY, OrderItemQueryDto.class)
+                 .setParameter("orderIds", orderIds)
+                 .getResultList();
+    }
+
+    private void groupByOrderId(List<OrderItemQueryDto> orderItems, Map<Long, List<OrderItemQueryDto>> orderItemMap) {
+        for (OrderItemQueryDto orderItem : orderItems) {
+            orderItemMap.computeIfAbsent(orderItem.getOrderId(), id -> new ArrayList<>()).add(orderItem);
+        }
+    }
+
     private List<Long> toOrderIds(List<OrderQueryDto> result) {
         List<Long> orderIds = result.stream()
                                     .map(o -> o.getOrderId())
@@ -104,7 +184,57 @@ public class OrderQueryRepository {
                         " join o.member m" +
                         " join o.delivery d" +
                         " join o.orderItems oi" + // 1 : N 조인은 데이터 뻥튀기 발생
-                        " join oi.item i", OrderFlatDto.class)
+                        " join oi.item i" +
+                        " order by o.id, oi.id", OrderFlatDto.class) // 같은 주문의 row가 연속으로 오도록 정렬
                  .getResultList();
     }
+
+    /**
+     * flat 조회(쿼리 1번) 결과를 v5와 같은 OrderQueryDto(+ OrderItemQueryDto) 구조로 다시 묶는다
+     * - order_id 로 정렬된 row 를 한 번만 훑으면서, 주문 id 가 바뀔 때만 새 OrderQueryDto 를 만든다
+     * - groupingBy(HashMap) 없이 이전 row 와만 비교하므로 추가 메모리는 결과 DTO 뿐
+     */
+    public List<OrderQueryDto> findAllByDto_flatNested() {
+        List<OrderFlatDto> flats = findAllByDto_flat();
+
+        List<OrderQueryDto> result = new ArrayList<>();
+        OrderQueryDto current = null;
+        for (OrderFlatDto flat : flats) {
+            if (current == null || !current.getOrderId().equals(flat.getOrderId())) {
+                current = new OrderQueryDto(flat.getOrderId(), flat.getUsername(), flat.getOrderDate(), flat.getOrderStatus(), flat.getAddress());
+                current.setOrderItems(new ArrayList<>());
+                result.add(current);
+            }
+            current.getOrderItems().add(new OrderItemQueryDto(flat.getOrderId(), flat.getItemName(), flat.getOrderPrice(), flat.getCount()));
+        }
+        return result;
+    }
+
+    /**
+     * findAllByDto_flat 의 스트리밍 버전
+     * - 결과를 List 로 모두 올리지 않고 forward-only 커서로 한 row 씩 consumer 에게 넘긴다
+     * - DTO 조회라 영속성 컨텍스트에 쌓이는 엔티티도 없으므로 주문 수와 상관없이 힙 사용량이 일정하다
+     * - 트랜잭션(커넥션)이 열려 있는 동안에만 호출 가능
+     *
+     * @param fetchSize : [int] JDBC fetch size, 드라이버가 한 번에 가져오는 row 수
+     * @param consumer  : row 단위 처리
+     */
+    public void streamAllByDto_flat(int fetchSize, Consumer<OrderFlatDto> consumer) {
+        Query<OrderFlatDto> query = em.unwrap(Session.class).createQuery(
+                "select new jpabook.jpa.shop.repository.order.query.OrderFlatDto(o.id, m.username, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count) " +
+                        " from Order o" +
+                        " join o.member m" +
+                        " join o.delivery d" +
+                        " join o.orderItems oi" +
+                        " join oi.item i", OrderFlatDto.class);
+
+        try (ScrollableResults results = query
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept((OrderFlatDto) results.get(0));
+            }
+        }
+    }
 }
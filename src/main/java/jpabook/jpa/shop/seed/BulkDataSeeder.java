@@ -0,0 +1,200 @@
+package jpabook.jpa.shop.seed;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 부하 테스트용 대량 데이터 입력 (shop.seed.enabled=true 일 때 InitDB 대신 동작)
+ *
+ * 부연 설명
+ * - EntityManager.persist 를 건건이 호출하지 않고 JDBC batch insert 로 넣는다
+ * - id 는 테이블별 시퀀스에서 시작 번호만 받고 필요한 개수만큼 구간을 미리 예약한다 (row 마다 시퀀스 호출 없음)
+ *     - 주문상품은 주문마다 maxItemsPerOrder 칸을 예약 (빈 번호가 생기지만 스레드끼리 맞출 필요가 없다)
+ *     - 예약한 구간 다음으로 시퀀스를 옮겨두므로 이후 persist(pooled-lo) 와 겹치지 않는다
+ * - 주문은 파티션으로 나눠 여러 스레드가 동시에 입력, 파티션마다 seed 를 따로 주므로 결과는 항상 같다
+ * - 인기 상품 / 주문 많은 회원 쏠림은 u^skew 로 만든다
+ * - MySQL 이라면 JDBC URL 에 rewriteBatchedStatements=true 를 줘야 batch 가 실제로 묶인다
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shop.seed.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class BulkDataSeeder implements ApplicationRunner {
+
+    private static final String[] CITIES = {"서울", "부산", "인천", "대구", "대전", "광주", "울산", "수원"};
+    private static final LocalDateTime ORDER_DATE_FROM = LocalDateTime.of(2022, 1, 1, 0, 0);
+    private static final int ORDER_DATE_RANGE_SECONDS = 365 * 24 * 60 * 60;
+
+    private final JdbcTemplate jdbc;
+    private final SeedProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long start = System.currentTimeMillis();
+
+        IdRanges ids = new IdRanges(
+                reserve("member_seq", properties.getMembers()),
+                reserve("item_seq", properties.getItems()),
+                reserve("delivery_seq", properties.getOrders()),
+                reserve("orders_seq", properties.getOrders()),
+                reserve("order_item_seq", (long) properties.getOrders() * properties.getMaxItemsPerOrder()),
+                properties.getMaxItemsPerOrder());
+        int[] itemPrices = seedItems(ids);
+        seedMembers(ids);
+        seedOrders(ids, itemPrices);
+
+        log.info("seed 완료: member {}, item {}, order {} ({} ms)",
+                properties.getMembers(), properties.getItems(), properties.getOrders(), System.currentTimeMillis() - start);
+    }
+
+    private void seedMembers(IdRanges ids) {
+        SplittableRandom random = new SplittableRandom(properties.getRandomSeed());
+        List<Object[]> rows = new ArrayList<>(properties.getBatchSize());
+        for (int i = 0; i < properties.getMembers(); i++) {
+            rows.add(new Object[]{ids.member(i), "member-" + i, CITIES[random.nextInt(CITIES.length)], "street-" + random.nextInt(1000), zipcode(random)});
+            if (rows.size() == properties.getBatchSize()) {
+                batch("insert into member (member_id, username, city, street, zipcode) values (?, ?, ?, ?, ?)", rows);
+            }
+        }
+        batch("insert into member (member_id, username, city, street, zipcode) values (?, ?, ?, ?, ?)", rows);
+    }
+
+    private int[] seedItems(IdRanges ids) {
+        SplittableRandom random = new SplittableRandom(properties.getRandomSeed() + 1);
+        int[] prices = new int[properties.getItems()];
+        List<Object[]> rows = new ArrayList<>(properties.getBatchSize());
+        for (int i = 0; i < properties.getItems(); i++) {
+            prices[i] = (1 + random.nextInt(100)) * 1000;
+            int stock = 1000 + random.nextInt(100_000);
+            switch (i % 3) {
+                case 0:
+                    rows.add(new Object[]{"B", ids.item(i), "book-" + i, prices[i], stock, "author-" + random.nextInt(1000), "isbn-" + i, null, null, null, null});
+                    break;
+                case 1:
+                    rows.add(new Object[]{"A", ids.item(i), "album-" + i, prices[i], stock, null, null, "artist-" + random.nextInt(1000), null, null, null});
+                    break;
+                default:
+                    rows.add(new Object[]{"M", ids.item(i), "movie-" + i, prices[i], stock, null, null, null, null, "director-" + random.nextInt(1000), "actor-" + random.nextInt(1000)});
+            }
+            if (rows.size() == properties.getBatchSize()) {
+                batchItems(rows);
+            }
+        }
+        batchItems(rows);
+        return prices;
+    }
+
+    private void batchItems(List<Object[]> rows) {
+        batch("insert into item (dtype, item_id, name, price, stock_quantity, author, isbn, artist, etc, director, actor)" +
+                " values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private void seedOrders(IdRanges ids, int[] itemPrices) throws InterruptedException, ExecutionException {
+        int partitionSize = properties.getOrdersPerPartition();
+        int partitions = (properties.getOrders() + partitionSize - 1) / partitionSize;
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, properties.getThreads()));
+        try {
+            List<Future<?>> futures = new ArrayList<>(partitions);
+            for (int p = 0; p < partitions; p++) {
+                int from = p * partitionSize;
+                int to = Math.min(properties.getOrders(), from + partitionSize);
+                long partitionSeed = properties.getRandomSeed() + 1000 + p;
+                futures.add(executor.submit(() -> seedOrderPartition(ids, itemPrices, from, to, partitionSeed)));
+            }
+            for (Future<?> future : futures) {
+                future.get(); // 한 파티션이라도 실패하면 예외 전파
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void seedOrderPartition(IdRanges ids, int[] itemPrices, int from, int to, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int batchSize = properties.getBatchSize();
+        List<Object[]> deliveries = new ArrayList<>(batchSize);
+        List<Object[]> orders = new ArrayList<>(batchSize);
+        List<Object[]> orderItems = new ArrayList<>(batchSize * properties.getMaxItemsPerOrder());
+
+        for (int i = from; i < to; i++) {
+            boolean canceled = random.nextInt(10) == 0;
+            boolean delivered = !canceled && random.nextInt(3) == 0;
+            deliveries.add(new Object[]{ids.delivery(i), CITIES[random.nextInt(CITIES.length)], "street-" + random.nextInt(1000), zipcode(random), delivered ? "COMP" : "READY"});
+            orders.add(new Object[]{ids.order(i), Timestamp.valueOf(ORDER_DATE_FROM.plusSeconds(random.nextInt(ORDER_DATE_RANGE_SECONDS))),
+                    canceled ? "CANCEL" : "ORDER", ids.delivery(i), ids.member(skewed(random, properties.getMembers(), properties.getMemberSkew()))});
+
+            int lines = 1 + random.nextInt(properties.getMaxItemsPerOrder());
+            for (int l = 0; l < lines; l++) {
+                int item = skewed(random, properties.getItems(), properties.getItemSkew());
+                orderItems.add(new Object[]{ids.orderItem(i, l), 1 + random.nextInt(5), itemPrices[item], ids.item(item), ids.order(i)});
+            }
+
+            if (orders.size() == batchSize || i == to - 1) {
+                batch("insert into delivery (delivery_id, city, street, zipcode, status) values (?, ?, ?, ?, ?)", deliveries);
+                batch("insert into orders (order_id, order_date, status, delivery_id, member_id) values (?, ?, ?, ?, ?)", orders);
+                batch("insert into order_item (order_item_id, count, order_price, item_id, order_id) values (?, ?, ?, ?, ?)", orderItems);
+            }
+        }
+    }
+
+    // 0 ~ bound - 1, skew 가 클수록 앞 번호에 몰린다
+    private int skewed(SplittableRandom random, int bound, double skew) {
+        return Math.min(bound - 1, (int) (bound * Math.pow(random.nextDouble(), skew)));
+    }
+
+    private String zipcode(SplittableRandom random) {
+        return String.valueOf(10000 + random.nextInt(90000));
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbc.batchUpdate(sql, rows);
+            rows.clear();
+        }
+    }
+
+    /**
+     * 시퀀스에서 count 개 id 구간을 예약하고 시작 번호를 반환
+     * - pooled-lo 에서 시퀀스 값은 다음 구간의 시작이므로, 예약한 구간 끝으로 restart 하면 이후 채번과 겹치지 않는다
+     */
+    private long reserve(String sequence, long count) {
+        long base = jdbc.queryForObject("select next value for " + sequence, Long.class);
+        jdbc.execute("alter sequence " + sequence + " restart with " + (base + count));
+        return base;
+    }
+
+    /**
+     * 테이블별 id 구간 시작 번호 (order_item 은 주문당 maxItemsPerOrder 칸)
+     */
+    @RequiredArgsConstructor
+    private static class IdRanges {
+        private final long memberBase;
+        private final long itemBase;
+        private final long deliveryBase;
+        private final long orderBase;
+        private final long orderItemBase;
+        private final int orderItemSlots;
+
+        long member(int i) { return memberBase + i; }
+        long item(int i) { return itemBase + i; }
+        long delivery(int i) { return deliveryBase + i; }
+        long order(int i) { return orderBase + i; }
+        long orderItem(int order, int line) { return orderItemBase + (long) order * orderItemSlots + line; }
+    }
+}
@@ -0,0 +1,31 @@
+package jpabook.jpa.shop.seed;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 대량 데이터 입력 설정 (application.yml > shop.seed)
+ */
+@Component
+@ConfigurationProperties(prefix = "shop.seed")
+@Getter @Setter
+public class SeedProperties {
+
+    private boolean enabled = false; // true 면 InitDB 대신 BulkDataSeeder 가 동작
+
+    private int members = 100_000;
+    private int items = 10_000;
+    private int orders = 1_000_000;
+    private int maxItemsPerOrder = 5;
+
+    // 쏠림 정도, u^skew (u: 0 ~ 1 난수) 로 앞쪽 번호를 뽑는다. 1 이면 균등, 클수록 소수의 인기 상품 / 주문 많은 회원에 몰린다
+    private double itemSkew = 3.0;
+    private double memberSkew = 2.0;
+
+    private long randomSeed = 42L; // 같은 seed + 같은 설정이면 항상 같은 데이터
+    private int threads = Math.min(8, Runtime.getRuntime().availableProcessors()); // 커넥션 풀 크기를 넘지 않도록
+    private int batchSize = 1000;
+    private int ordersPerPartition = 10_000; // 파티션 단위로 난수를 따로 만들어서, 스레드 수와 상관없이 결과가 같다
+}
@@ -0,0 +1,106 @@
+package jpabook.jpa.shop.service;
+
+import jpabook.jpa.shop.category.CategoryItemIndex;
+import jpabook.jpa.shop.category.CategoryTree;
+import jpabook.jpa.shop.category.ItemBitmap;
+import jpabook.jpa.shop.domain.item.Category;
+import jpabook.jpa.shop.domain.item.Item;
+import jpabook.jpa.shop.repository.CategoryRepository;
+import jpabook.jpa.shop.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class CategoryService {
+
+    private final CategoryRepository categoryRepository;
+    private final ItemRepository itemRepository;
+    private final CategoryTree categoryTree;
+    private final CategoryItemIndex categoryItemIndex;
+
+    /**
+     * 카테고리 생성
+     *
+     * @param name     : [String] 카테고리 이름
+     * @param parentId : [Long] 부모 카테고리 id, null 이면 최상위
+     */
+    @Transactional
+    public Long create(String name, Long parentId) {
+        Category category = new Category();
+        category.setName(name);
+        categoryRepository.save(category); // 시퀀스로 id 확정, insert 는 flush 때 path 와 함께
+
+        if (parentId == null) {
+            category.markRoot();
+        } else {
+            findCategory(parentId).addChildCategory(category);
+        }
+        categoryTree.refreshAfterCommit();
+        return category.getId();
+    }
+
+    /**
+     * 카테고리를 다른 부모 아래로 옮긴다 (하위 카테고리도 같이)
+     */
+    @Transactional
+    public void move(Long categoryId, Long parentId) {
+        Category category = findCategory(categoryId);
+        String oldPath = category.getPath();
+        findCategory(parentId).addChildCategory(category);
+        categoryRepository.rewriteSubtreePaths(oldPath, category.getPath());
+        categoryTree.refreshAfterCommit();
+    }
+
+    @Transactional
+    public void addItem(Long categoryId, Long itemId) {
+        Item item = itemRepository.findById(itemId);
+        if (item == null) {
+            throw new IllegalArgumentException("존재하지 않는 상품입니다. id=" + itemId);
+        }
+        Category category = findCategory(categoryId);
+        if (!category.getItems().contains(item)) {
+            category.getItems().add(item);
+            categoryItemIndex.addAfterCommit(categoryId, itemId);
+        }
+    }
+
+    /**
+     * 카테고리와 그 아래 모든 카테고리의 상품 (페이지, 쿼리 1번 + 필요하면 count 1번)
+     * - path 는 DB 에서 PK 로 읽는다 (트리 스냅샷은 다른 서버에서 옮긴 카테고리를 늦게 반영한다)
+     */
+    public Page<Item> findItems(Long categoryId, Pageable pageable) {
+        return categoryRepository.findItemsUnder(findCategory(categoryId).getPath(), pageable);
+    }
+
+    /**
+     * 여러 카테고리 조건으로 상품 거르기 (페이지, 상품 id 순)
+     * - 조건 계산은 CategoryItemIndex 의 bitmap 연산, DB 는 결과 중 한 페이지의 상품만 id IN 으로 읽는다
+     * - 전체 건수는 bitmap 개수 (count 쿼리 없음)
+     *
+     * @param all  : 모두 속해야 하는 카테고리
+     * @param any  : 하나 이상 속해야 하는 카테고리
+     * @param none : 속하면 안 되는 카테고리
+     */
+    public Page<Item> filterItems(Collection<Long> all, Collection<Long> any, Collection<Long> none, Pageable pageable) {
+        ItemBitmap itemIds = categoryItemIndex.filter(all, any, none);
+        List<Long> pageIds = itemIds.ids(pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(itemRepository.findAllByIds(pageIds), pageable, itemIds.cardinality());
+    }
+
+    private Category findCategory(Long categoryId) {
+        Category category = categoryRepository.findById(categoryId);
+        if (category == null) {
+            throw new IllegalArgumentException("존재하지 않는 카테고리입니다. id=" + categoryId);
+        }
+        return category;
+    }
+}
@@ -1,8 +1,13 @@
 package jpabook.jpa.shop.service;
 
+import jpabook.jpa.shop.catalog.CatalogItem;
+import jpabook.jpa.shop.catalog.ItemCatalog;
 import jpabook.jpa.shop.domain.item.Book;
 import jpabook.jpa.shop.domain.item.Item;
 import jpabook.jpa.shop.repository.ItemRepository;
+import jpabook.jpa.shop.repository.item.query.BookDto;
+import jpabook.jpa.shop.repository.item.query.ItemQueryRepository;
+import jpabook.jpa.shop.stock.StockManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,6 +20,9 @@ import java.util.List;
 public class ItemService {
 
     private final ItemRepository itemRepository;
+    private final ItemQueryRepository itemQueryRepository;
+    private final StockManager stockManager;
+    private final ItemCatalog itemCatalog;
 
     @Transactional
     public void save(Item item) {
@@ -23,17 +31,33 @@ public class ItemService {
 
     @Transactional
     public void updateItem(Long itemId, int price, String name, int stockQuantity) {
+        stockManager.evict(itemId); // 재고 원장을 쓰는 경우 새 재고를 다시 읽도록
         Item findItem = itemRepository.findById(itemId);
         findItem.setPrice(price);
         findItem.setName(name);
         findItem.setStockQuantity(stockQuantity);
+        itemCatalog.markChanged(itemId); // dirty checking 으로 커밋되므로 끝난 뒤 다시 읽는다
     }
 
     public List<Item> findAll() {
         return itemRepository.findAll();
     }
 
+    /**
+     * 목록 화면용 (id, 이름, 가격, 재고만), JPA 를 거치지 않고 카탈로그 스냅샷에서
+     */
+    public List<CatalogItem> findCatalog() {
+        return itemCatalog.snapshot().items();
+    }
+
     public Item findById(Long id) {
         return itemRepository.findById(id);
     }
+
+    /**
+     * @return 없거나 도서가 아니면 null
+     */
+    public BookDto findBook(Long id) {
+        return itemQueryRepository.findBook(id);
+    }
 }
@@ -0,0 +1,337 @@
+package jpabook.jpa.shop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import jpabook.jpa.shop.dto.request.MemberImportDTO;
+import jpabook.jpa.shop.dto.response.MemberImportResultDTO;
+import jpabook.jpa.shop.dto.response.MemberImportResultDTO.Reason;
+import jpabook.jpa.shop.dto.response.MemberImportResultDTO.Rejected;
+import jpabook.jpa.shop.member.MemberNameIndex;
+import jpabook.jpa.shop.member.UsernameFilter;
+import jpabook.jpa.shop.repository.InClauseChunks;
+import jpabook.jpa.shop.repository.MemberRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 회원 일괄 등록 (제휴사 회원 파일, JSON 배열 || CSV)
+ *
+ * 부연 설명
+ * - 요청 본문을 스트림으로 읽으면서 chunk-size 줄씩 처리한다, 파일 전체를 메모리에 올리지 않는다 (파일 안 중복 검사용 이름 Set 만 남는다)
+ * - 중복 검사
+ *     - 파일 안: 지금까지 읽은 이름 Set
+ *     - DB: UsernameFilter 에 걸린 이름만 모아서 IN 쿼리 (InClauseChunks), 대부분의 신규 이름은 조회하지 않는다
+ * - 등록은 JDBC batch insert, id 는 member_seq 값 하나로 50개 구간을 쓰는 pooled-lo 방식이라 persist 채번과 겹치지 않는다
+ * - chunk 마다 트랜잭션을 따로 커밋한다 (중간에 잘못된 형식으로 실패하면 앞 chunk 까지는 등록된 상태)
+ * - 그 사이 다른 요청이 같은 이름을 가입시키면 unique 제약에 걸리므로, DB 를 다시 조회해서 빼고 한 번 더 넣는다
+ */
+@Slf4j
+@Service
+public class MemberImportService {
+
+    private static final String INSERT_SQL = "insert into member (member_id, username, city, street, zipcode) values (?, ?, ?, ?, ?)";
+    private static final int MEMBER_SEQ_INCREMENT = 50; // Member @SequenceGenerator allocationSize 와 같아야 한다
+    private static final String CSV_HEADER = "username";
+    private static final int MAX_COLUMN_LENGTH = 255; // member varchar 컬럼 길이 (넘으면 batch insert 전체가 실패한다)
+
+    private final MemberRepository memberRepository;
+    private final UsernameFilter usernameFilter;
+    private final MemberNameIndex memberNameIndex;
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper objectMapper;
+    private final SessionFactoryImplementor sessionFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final String memberSeqNextValue;
+    private final int chunkSize;
+
+    public MemberImportService(MemberRepository memberRepository,
+                               UsernameFilter usernameFilter,
+                               MemberNameIndex memberNameIndex,
+                               JdbcTemplate jdbc,
+                               ObjectMapper objectMapper,
+                               EntityManagerFactory emf,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${shop.member.import.chunk-size:1000}") int chunkSize) {
+        this.memberRepository = memberRepository;
+        this.usernameFilter = usernameFilter;
+        this.memberNameIndex = memberNameIndex;
+        this.jdbc = jdbc;
+        this.objectMapper = objectMapper;
+        this.sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.memberSeqNextValue = sessionFactory.getJdbcServices().getDialect().getSequenceNextValString("member_seq");
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * JSON 배열 [{"username": "...", "city": "...", "street": "...", "zipcode": "..."}, ...]
+     *
+     * @throws IllegalArgumentException JSON 형식이 잘못된 경우
+     */
+    public MemberImportResultDTO importJson(InputStream in) throws IOException {
+        try (MappingIterator<MemberImportDTO> rows = objectMapper.readerFor(MemberImportDTO.class).readValues(in)) {
+            return importRows(rows);
+        } catch (JsonProcessingException | RuntimeJsonMappingException e) {
+            throw new IllegalArgumentException("잘못된 회원 JSON 입니다. " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            // MappingIterator.hasNext 는 파싱 오류(IOException)를 RuntimeException 으로 감싸서 던진다
+            if (e.getCause() instanceof JsonProcessingException) {
+                throw new IllegalArgumentException("잘못된 회원 JSON 입니다. " + e.getCause().getMessage(), e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * CSV (RFC 4180) username,city,street,zipcode
+     * - 첫 줄이 username 으로 시작하면 헤더로 보고 건너뛴다, 빈 줄은 무시
+     */
+    public MemberImportResultDTO importCsv(InputStream in) throws IOException {
+        CsvRows rows = new CsvRows(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        try {
+            return importRows(rows);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private MemberImportResultDTO importRows(Iterator<MemberImportDTO> rows) {
+        Set<String> seen = new HashSet<>();
+        List<Rejected> rejected = new ArrayList<>();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        int created = 0;
+
+        try {
+            for (int index = 0; rows.hasNext(); index++) {
+                MemberImportDTO member = rows.next();
+                String username = member.getUsername() == null ? null : member.getUsername().trim();
+                member.setUsername(username);
+
+                if (!StringUtils.hasText(username) || tooLong(member)) {
+                    rejected.add(new Rejected(index, username, Reason.INVALID));
+                } else if (!seen.add(username)) {
+                    rejected.add(new Rejected(index, username, Reason.DUPLICATE_IN_FILE));
+                } else {
+                    chunk.add(new Row(index, member));
+                }
+
+                if (chunk.size() == chunkSize) {
+                    created += insertChunk(chunk, rejected);
+                    chunk.clear();
+                }
+            }
+            created += insertChunk(chunk, rejected);
+        } finally {
+            // JDBC 로 넣었으므로 회원 목록 쿼리 캐시는 직접 비운다 (중간에 실패해도 앞 chunk 는 이미 커밋됨)
+            if (created > 0) {
+                sessionFactory.getCache().evictQueryRegions();
+            }
+        }
+        log.info("회원 일괄 등록: 등록 {}, 거절 {}", created, rejected.size());
+
+        rejected.sort(Comparator.comparingInt(Rejected::getIndex));
+        return new MemberImportResultDTO(created, rejected.size(), rejected);
+    }
+
+    private static boolean tooLong(MemberImportDTO member) {
+        return Stream.of(member.getUsername(), member.getCity(), member.getStreet(), member.getZipcode())
+                .anyMatch(value -> value != null && value.length() > MAX_COLUMN_LENGTH);
+    }
+
+    private int insertChunk(List<Row> chunk, List<Rejected> rejected) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+
+        List<Row> accepted = withoutExisting(chunk, findExisting(chunk, true), rejected);
+        List<Long> ids;
+        try {
+            ids = insert(accepted);
+        } catch (DataIntegrityViolationException e) {
+            // 그 사이 다른 요청이 같은 이름을 가입시킴 -> 필터 없이 다시 조회 (못 찾으면 다른 원인이므로 그대로 던진다)
+            Set<String> raced = findExisting(accepted, false);
+            if (raced.isEmpty()) {
+                throw e;
+            }
+            accepted = withoutExisting(accepted, raced, rejected);
+            ids = insert(accepted);
+        }
+
+        for (int i = 0; i < accepted.size(); i++) {
+            usernameFilter.add(accepted.get(i).getUsername());
+            memberNameIndex.put(ids.get(i), accepted.get(i).getUsername()); // 이미 커밋됨
+        }
+        return accepted.size();
+    }
+
+    private Set<String> findExisting(List<Row> rows, boolean useFilter) {
+        List<String> usernames = rows.stream()
+                .map(Row::getUsername)
+                .filter(username -> !useFilter || usernameFilter.mightExist(username))
+                .collect(Collectors.toList());
+
+        Set<String> existing = new HashSet<>();
+        for (List<String> chunk : InClauseChunks.split(usernames)) {
+            existing.addAll(memberRepository.findExistingUsernames(chunk));
+        }
+        return existing;
+    }
+
+    private List<Row> withoutExisting(List<Row> rows, Set<String> existing, List<Rejected> rejected) {
+        if (existing.isEmpty()) {
+            return rows;
+        }
+        List<Row> accepted = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            if (existing.contains(row.getUsername())) {
+                rejected.add(new Rejected(row.getIndex(), row.getUsername(), Reason.ALREADY_EXISTS));
+            } else {
+                accepted.add(row);
+            }
+        }
+        return accepted;
+    }
+
+    // 새 회원 id 를 rows 순서대로 돌려준다
+    private List<Long> insert(List<Row> rows) {
+        if (rows.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        List<Object[]> args = new ArrayList<>(rows.size());
+        long nextId = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            if (i % MEMBER_SEQ_INCREMENT == 0) {
+                nextId = jdbc.queryForObject(memberSeqNextValue, Long.class); // pooled-lo: [값, 값 + 50) 구간을 받는다
+            }
+            MemberImportDTO member = rows.get(i).getMember();
+            ids.add(nextId);
+            args.add(new Object[]{nextId++, member.getUsername(), member.getCity(), member.getStreet(), member.getZipcode()});
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbc.batchUpdate(INSERT_SQL, args));
+        return ids;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class Row {
+        private final int index;
+        private final MemberImportDTO member;
+
+        String getUsername() {
+            return member.getUsername();
+        }
+    }
+
+    /**
+     * CSV 레코드를 하나씩 읽는다 (따옴표 안의 구분자 / 개행, "" 이스케이프 지원)
+     */
+    private static class CsvRows implements Iterator<MemberImportDTO> {
+
+        private final Reader reader;
+        private boolean first = true;
+        private MemberImportDTO next;
+
+        CsvRows(Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            try {
+                List<String> fields;
+                while ((fields = readRecord()) != null) {
+                    boolean header = first && fields.get(0).trim().equalsIgnoreCase(CSV_HEADER);
+                    first = false;
+                    if (header || (fields.size() == 1 && fields.get(0).trim().isEmpty())) {
+                        continue;
+                    }
+                    next = new MemberImportDTO(field(fields, 0), field(fields, 1), field(fields, 2), field(fields, 3));
+                    return true;
+                }
+                return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public MemberImportDTO next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            MemberImportDTO current = next;
+            next = null;
+            return current;
+        }
+
+        private String field(List<String> fields, int i) {
+            return i < fields.size() && !fields.get(i).isEmpty() ? fields.get(i) : null;
+        }
+
+        // 레코드 하나, 파일 끝이면 null
+        private List<String> readRecord() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean read = false;
+
+            int c;
+            while ((c = reader.read()) != -1) {
+                read = true;
+                if (quoted) {
+                    if (c != '"') {
+                        field.append((char) c);
+                        continue;
+                    }
+                    reader.mark(1);
+                    int following = reader.read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (following != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r' && !(c == '\uFEFF' && first && fields.isEmpty() && field.length() == 0)) { // 엑셀 저장 시 붙는 BOM
+                    field.append((char) c);
+                }
+            }
+            if (!read) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
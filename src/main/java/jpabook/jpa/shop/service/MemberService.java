@@ -1,13 +1,18 @@
 package jpabook.jpa.shop.service;
 
 import jpabook.jpa.shop.domain.Member;
+import jpabook.jpa.shop.member.MemberNameIndex;
+import jpabook.jpa.shop.member.UsernameFilter;
 import jpabook.jpa.shop.repository.MemberRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 
 // 01. @Transactional   =>      javax || * spring
 // 02. Injection        =>      field || setter || * constructor || annotation (@AllArgsConstructor, @RequiredArgsConstructor)
@@ -19,25 +24,48 @@ import java.util.List;
 public class MemberService {
 
     private final MemberRepository memberRepository;
+    private final OrderSearchCache orderSearchCache;
+    private final UsernameFilter usernameFilter;
+    private final MemberNameIndex memberNameIndex;
 
     // 회원 가입
     @Transactional
     public Long save(Member member) {
-        validateDuplicateMember(member);
-        memberRepository.save(member);
+        validateDuplicateMember(member.getUsername());
+        flushUsername(() -> memberRepository.saveAndFlush(member));
+        usernameFilter.add(member.getUsername());
+        memberNameIndex.putAfterCommit(member.getId(), member.getUsername());
         return member.getId();
     }
 
     // 회원 validation
-    private void validateDuplicateMember(Member member) {
-        List<Member> findMembers = memberRepository.findByUsername(member.getUsername());
-        log.info("findMembers = {}", findMembers.toString());
-
-        if (!findMembers.isEmpty()) {
+    // 필터에 없는 이름은 DB 에도 없으므로 조회하지 않는다, 있으면(오탐 포함) 존재 여부만 조회
+    private void validateDuplicateMember(String username) {
+        if (usernameFilter.mightExist(username) && memberRepository.existsByUsername(username)) {
             throw new IllegalStateException("이미 존재하는 회원입니다.");
         }
     }
 
+    // 동시에 같은 이름으로 가입 / 변경하면 flush 에서 unique 제약 위반
+    private void flushUsername(Runnable flush) {
+        try {
+            flush.run();
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateUsername(e)) {
+                throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+            }
+            throw e;
+        }
+    }
+
+    private boolean isDuplicateUsername(DataIntegrityViolationException e) {
+        if (!(e.getCause() instanceof ConstraintViolationException)) {
+            return false;
+        }
+        String constraintName = ((ConstraintViolationException) e.getCause()).getConstraintName();
+        return constraintName != null && constraintName.toLowerCase().contains("uk_member_username");
+    }
+
     // 회원 전체 조회
     public List<Member> findAll(){
         return memberRepository.findAll();
@@ -52,6 +80,14 @@ public class MemberService {
     @Transactional
     public void update(Long id, String username) {
         Member member = memberRepository.findById(id).get();
+        if (Objects.equals(member.getUsername(), username)) {
+            return;
+        }
+        validateDuplicateMember(username);
         member.setUsername(username);
+        flushUsername(memberRepository::flush);
+        usernameFilter.add(username);
+        memberNameIndex.putAfterCommit(id, username);
+        orderSearchCache.invalidateAfterCommit(); // 회원명으로 검색한 주문 결과가 바뀐다
     }
 }
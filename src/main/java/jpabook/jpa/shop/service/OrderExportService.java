@@ -0,0 +1,124 @@
+package jpabook.jpa.shop.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jpabook.jpa.shop.domain.Address;
+import jpabook.jpa.shop.repository.order.query.OrderFlatDto;
+import jpabook.jpa.shop.repository.order.query.OrderQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 주문(flat) 내보내기
+ * - DB 커서에서 읽은 row 를 바로 응답 스트림에 쓴다, 전체 결과를 메모리에 올리지 않는다
+ * - 트랜잭션(커넥션)은 내보내기가 끝날 때까지 유지 된다
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class OrderExportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private static final String CSV_HEADER = "orderId,username,orderDate,orderStatus,city,street,zipcode,itemName,orderPrice,count";
+
+    private final OrderQueryRepository orderQueryRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${shop.export.fetch-size:500}")
+    private int fetchSize;
+
+    /**
+     * 주문 flat 데이터 내보내기
+     *
+     * @param format : [Format] NDJSON(한 줄에 JSON 하나) || CSV
+     * @param out    : [OutputStream] 응답 스트림, 여기서 닫지 않는다
+     */
+    public void exportFlat(Format format, OutputStream out) throws IOException {
+        try {
+            if (format == Format.CSV) {
+                exportCsv(out);
+            } else {
+                exportNdjson(out);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // 클라이언트 연결 끊김 등
+        }
+    }
+
+    private void exportNdjson(OutputStream out) throws IOException {
+        SequenceWriter writer = objectMapper.writerFor(OrderFlatDto.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out);
+
+        orderQueryRepository.streamAllByDto_flat(fetchSize, row -> {
+            try {
+                writer.write(row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.close(); // 남은 버퍼 flush (AUTO_CLOSE_TARGET 을 꺼두었으므로 out 은 닫히지 않는다)
+        out.write('\n');
+        out.flush();
+    }
+
+    private void exportCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        orderQueryRepository.streamAllByDto_flat(fetchSize, row -> {
+            try {
+                writeCsvRow(writer, row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private void writeCsvRow(Writer writer, OrderFlatDto row) throws IOException {
+        Address address = row.getAddress();
+        writer.write(String.valueOf(row.getOrderId()));
+        writer.write(',');
+        writer.write(csv(row.getUsername()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getOrderDate()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getOrderStatus()));
+        writer.write(',');
+        writer.write(csv(address == null ? null : address.getCity()));
+        writer.write(',');
+        writer.write(csv(address == null ? null : address.getStreet()));
+        writer.write(',');
+        writer.write(csv(address == null ? null : address.getZipcode()));
+        writer.write(',');
+        writer.write(csv(row.getItemName()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getOrderPrice()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getCount()));
+        writer.write('\n');
+    }
+
+    // RFC 4180: 구분자, 따옴표, 개행이 있으면 따옴표로 감싸고 따옴표는 두 번 쓴다
+    private String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
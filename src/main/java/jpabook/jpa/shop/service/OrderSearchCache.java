@@ -0,0 +1,138 @@
+package jpabook.jpa.shop.service;
+
+import jpabook.jpa.shop.domain.OrderStatus;
+import jpabook.jpa.shop.repository.OrderSearch;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 주문 검색 결과 캐시 (검색 조건 + 페이지 -> 주문 id 목록 + 전체 건수)
+ *
+ * 부연 설명
+ * - 관리 화면(/orders)은 같은 조건으로 반복 검색하므로, 검색 / count 쿼리 대신 id 로 주문만 다시 읽는다
+ * - 엔티티는 영속성 컨텍스트(트랜잭션)에 묶여 있으므로 id 목록만 보관한다
+ * - 최대 max-entries 개, 넘으면 가장 오래 안 쓴 조건부터 버린다 (LRU)
+ * - 주문 / 취소 / 회원명 변경이 커밋되면 전부 비운다 (어떤 조건의 결과가 바뀌는지 따지지 않는다)
+ * - 조건 없는 검색의 전체 건수(= 전체 주문 수)는 따로 unfiltered-total-ttl-ms 동안 들고 있는다
+ *     - 주문이 들어올 때마다 비우면 주문이 많은 시간대에는 매번 count(*) 가 다시 돈다
+ *     - 그동안 들어온 주문만큼 틀릴 수 있다 (근사치), 0 이면 매번 센다
+ */
+@Component
+public class OrderSearchCache {
+
+    private final int maxEntries;
+    private final long unfilteredTotalTtlMs;
+    private final Map<Key, CachedPage> entries;
+
+    // 비울 때마다 증가, 검색을 시작할 때의 값과 다르면 그 사이 바뀐 결과일 수 있으므로 넣지 않는다
+    private long generation;
+
+    private long unfilteredTotal;
+    private long unfilteredTotalAt = -1; // System.currentTimeMillis, -1 이면 없음
+
+    public OrderSearchCache(@Value("${shop.order.search-cache.max-entries:256}") int maxEntries,
+                            @Value("${shop.order.search-cache.unfiltered-total-ttl-ms:60000}") long unfilteredTotalTtlMs) {
+        this.maxEntries = maxEntries;
+        this.unfilteredTotalTtlMs = unfilteredTotalTtlMs;
+        this.entries = new LinkedHashMap<Key, CachedPage>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedPage> eldest) {
+                return size() > OrderSearchCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return 캐시된 페이지, 없으면 null
+     */
+    public synchronized CachedPage get(OrderSearch orderSearch, Pageable pageable) {
+        return entries.get(Key.of(orderSearch, pageable));
+    }
+
+    // 검색 쿼리 실행 전에 읽어두고 put 에 넘긴다
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void put(OrderSearch orderSearch, Pageable pageable, long generation, List<Long> orderIds, long total) {
+        if (maxEntries <= 0 || generation != this.generation) {
+            return;
+        }
+        entries.put(Key.of(orderSearch, pageable), new CachedPage(List.copyOf(orderIds), total));
+    }
+
+    /**
+     * @return ttl 안의 전체 주문 수, 없거나 지났으면 null
+     */
+    public synchronized Long unfilteredTotal() {
+        if (unfilteredTotalAt < 0 || System.currentTimeMillis() - unfilteredTotalAt >= unfilteredTotalTtlMs) {
+            return null;
+        }
+        return unfilteredTotal;
+    }
+
+    public synchronized void putUnfilteredTotal(long total) {
+        if (unfilteredTotalTtlMs <= 0) {
+            return;
+        }
+        unfilteredTotal = total;
+        unfilteredTotalAt = System.currentTimeMillis();
+    }
+
+    public synchronized void invalidate() {
+        generation++;
+        entries.clear();
+    }
+
+    // 커밋 전에 비우면, 그 사이 다른 검색이 커밋 전 결과를 다시 넣을 수 있다
+    public void invalidateAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate();
+            }
+        });
+    }
+
+    public static boolean isUnfiltered(OrderSearch orderSearch) {
+        return !StringUtils.hasText(orderSearch.getMemberName()) && orderSearch.getOrderStatus() == null;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class CachedPage {
+        private final List<Long> orderIds;
+        private final long total;
+    }
+
+    // 회원명이 null / 빈 문자열 / 공백이면 같은 검색 (OrderRepository 도 조건에서 뺀다)
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    static class Key {
+        private final String memberName;
+        private final OrderStatus orderStatus;
+        private final long offset;
+        private final int pageSize;
+
+        static Key of(OrderSearch orderSearch, Pageable pageable) {
+            String memberName = orderSearch.getMemberName();
+            return new Key(StringUtils.hasText(memberName) ? memberName : null, orderSearch.getOrderStatus(),
+                    pageable.getOffset(), pageable.getPageSize());
+        }
+    }
+}
@@ -4,25 +4,41 @@ import jpabook.jpa.shop.domain.Delivery;
 import jpabook.jpa.shop.domain.Member;
 import jpabook.jpa.shop.domain.Order;
 import jpabook.jpa.shop.domain.OrderItem;
+import jpabook.jpa.shop.domain.OrderStatus;
 import jpabook.jpa.shop.domain.item.Item;
+import jpabook.jpa.shop.dto.request.OrderRequestDTO;
+import jpabook.jpa.shop.dto.response.OrderResultDTO;
+import jpabook.jpa.shop.exception.NotEnoughStockException;
 import jpabook.jpa.shop.repository.ItemRepository;
 import jpabook.jpa.shop.repository.MemberRepository;
+import jpabook.jpa.shop.repository.OrderFetchPlan;
 import jpabook.jpa.shop.repository.OrderRepository;
 import jpabook.jpa.shop.repository.OrderSearch;
+import jpabook.jpa.shop.repository.order.query.OrderListDto;
+import jpabook.jpa.shop.stock.StockManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class OrderService {
 
+    // 일괄 주문 한 줄의 최대 수량 (상품별 합계 / 주문 금액이 int 를 넘지 않도록)
+    static final int MAX_COUNT_PER_LINE = 10_000;
+
     private final OrderRepository orderRepository;
     private final MemberRepository MemberRepository;
     private final ItemRepository itemRepository;
+    private final StockManager stockManager;
+    private final OrderSearchCache orderSearchCache;
 
     /**
      * 상품 주문
@@ -33,6 +49,9 @@ public class OrderService {
      */
     @Transactional
     public Long order(Long memberId, Long itemId, int count) {
+        // 재고 차감 (재고 부족이면 NotEnoughStockException)
+        stockManager.decrease(itemId, count);
+
         // 엔티티 조회
         Member member = MemberRepository.findById(memberId).get();
         Item item = itemRepository.findById(itemId);
@@ -41,17 +60,102 @@ public class OrderService {
         Delivery delivery = new Delivery();
         delivery.setAddress(member.getAddress());
 
-        // 주문 상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+        // 주문 상품 생성 (재고는 위에서 차감)
+        OrderItem orderItem = OrderItem.createReservedOrderItem(item, item.getPrice(), count);
 
         // 주문 생성
         Order order = Order.createOrder(member, delivery, orderItem);
 
         // 주문 저장
         orderRepository.save(order);
+        orderSearchCache.invalidateAfterCommit();
         return order.getId();
     }
 
+    /**
+     * 일괄 주문
+     *
+     * 부연 설명
+     * - 회원, 상품(가격)은 각각 IN 쿼리 한 번으로 조회 (주문 금액이므로 카탈로그가 아닌 DB 의 현재 가격)
+     * - 재고는 상품별로 수량을 합쳐서 한 번에 차감, 부족하면 요청 순서대로 들어가는 줄만 차감한다
+     *     - 상품 id 오름차순으로 차감한다 (동시에 도는 일괄 주문 / 접수 워커끼리 row lock 순서가 엇갈려 deadlock 나지 않도록)
+     *     - 한 줄의 수량은 MAX_COUNT_PER_LINE 까지
+     * - 주문 저장은 persist 만 하고 커밋 시점에 한 번 flush (insert 는 JDBC batch 로 묶인다)
+     * - 회원 / 상품이 없거나 재고가 부족한 줄은 REJECTED 로 돌려주고 나머지는 주문한다
+     *
+     * @param requests : [List<OrderRequestDTO>] 주문 목록
+     * @return 요청 순서대로 줄 단위 결과
+     */
+    @Transactional
+    public List<OrderResultDTO> orderBatch(List<OrderRequestDTO> requests) {
+        Map<Long, Member> members = MemberRepository.findAllById(
+                requests.stream().map(OrderRequestDTO::getMemberId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Member::getId, m -> m));
+        Map<Long, Integer> prices = itemRepository.findPrices(
+                requests.stream().map(OrderRequestDTO::getItemId).filter(Objects::nonNull).collect(Collectors.toSet()));
+
+        OrderResultDTO[] results = new OrderResultDTO[requests.size()];
+
+        // 상품 id 순 -> 상품별 주문 줄 (요청 순서 유지)
+        Map<Long, List<Integer>> linesByItem = new TreeMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            OrderRequestDTO request = requests.get(i);
+            if (request.getCount() <= 0) {
+                results[i] = OrderResultDTO.rejected(i, "주문 수량은 1 이상이어야 합니다.");
+            } else if (request.getCount() > MAX_COUNT_PER_LINE) {
+                results[i] = OrderResultDTO.rejected(i, "주문 수량은 " + MAX_COUNT_PER_LINE + " 이하여야 합니다.");
+            } else if (!members.containsKey(request.getMemberId())) {
+                results[i] = OrderResultDTO.rejected(i, "회원이 존재하지 않습니다.");
+            } else if (!prices.containsKey(request.getItemId())) {
+                results[i] = OrderResultDTO.rejected(i, "상품이 존재하지 않습니다.");
+            } else {
+                linesByItem.computeIfAbsent(request.getItemId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+
+        // 재고 차감
+        List<Integer> reserved = new ArrayList<>();
+        linesByItem.forEach((itemId, lines) -> {
+            // 한 줄 MAX_COUNT_PER_LINE x 요청 최대 1000 줄(BatchOrderRequest) / 접수 max-batch 이므로 int 로 충분
+            int total = lines.stream().mapToInt(i -> requests.get(i).getCount()).sum();
+            try {
+                stockManager.decrease(itemId, total);
+                reserved.addAll(lines);
+            } catch (NotEnoughStockException e) {
+                for (Integer i : lines) {
+                    try {
+                        stockManager.decrease(itemId, requests.get(i).getCount());
+                        reserved.add(i);
+                    } catch (NotEnoughStockException shortage) {
+                        results[i] = OrderResultDTO.rejected(i, "재고가 부족합니다.");
+                    }
+                }
+            }
+        });
+
+        // 주문 생성
+        Collections.sort(reserved);
+        for (Integer i : reserved) {
+            OrderRequestDTO request = requests.get(i);
+            Member member = members.get(request.getMemberId());
+
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+
+            OrderItem orderItem = OrderItem.createReservedOrderItem(
+                    itemRepository.getReference(request.getItemId()), prices.get(request.getItemId()), request.getCount());
+
+            Order order = Order.createOrder(member, delivery, orderItem);
+            orderRepository.save(order); // id 는 시퀀스(pooled)에서 바로 받는다
+            results[i] = OrderResultDTO.ordered(i, order.getId());
+        }
+        if (!reserved.isEmpty()) {
+            orderSearchCache.invalidateAfterCommit();
+        }
+        return Arrays.asList(results);
+    }
+
     /**
      * 취소
      *
@@ -62,12 +166,66 @@ public class OrderService {
         // 주문 엔티티 조회
         Order order = orderRepository.findById(orderId);
 
-        // 주문 취소
+        // 주문 -> 취소 전이를 먼저 잡는다 (동시에 / 두 번 취소해도 재고는 한 번만 원복)
+        if (!orderRepository.changeStatus(orderId, OrderStatus.ORDER, OrderStatus.CANCEL)) {
+            throw new IllegalStateException("이미 취소된 주문입니다.");
+        }
+
+        // 주문 취소 (배송 완료면 예외 -> 위 update 도 롤백)
         order.cancelOrder();
+
+        // 재고 원복
+        for (OrderItem orderItem : order.getOrderItems()) {
+            stockManager.increase(orderItem.getItem().getId(), orderItem.getCount());
+        }
+        orderSearchCache.invalidateAfterCommit();
+    }
+
+    /**
+     * 검색 (페이지)
+     * - 같은 조건 + 페이지는 캐시된 id 목록과 건수로 주문만 다시 읽는다 (OrderSearchCache)
+     * - 조건 없는 검색의 전체 건수는 ttl 동안 재사용한다 (근사치)
+     * - open-in-view 가 꺼져 있으므로 트랜잭션 밖에서 쓸 연관관계는 plan 으로 정한다
+     */
+    public Page<Order> searchOrder(OrderSearch orderSearch, Pageable pageable, OrderFetchPlan plan) {
+        OrderSearchCache.CachedPage cached = orderSearchCache.get(orderSearch, pageable);
+        if (cached != null) {
+            return new PageImpl<>(orderRepository.findAllByIds(cached.getOrderIds(), plan), pageable, cached.getTotal());
+        }
+
+        long generation = orderSearchCache.generation();
+        Page<Order> page = orderRepository.findAll(orderSearch, pageable, plan, () -> countOrders(orderSearch));
+        orderSearchCache.put(orderSearch, pageable, generation,
+                page.getContent().stream().map(Order::getId).collect(Collectors.toList()), page.getTotalElements());
+        return page;
+    }
+
+    /**
+     * 주문 목록 화면 검색 - searchOrder 와 같은 캐시 / 건수를 쓰고, 엔티티 대신 화면 컬럼만 조회한다
+     * - 반환한 DTO 는 영속성 컨텍스트와 무관하므로 렌더링 중에 쿼리가 나가지 않는다
+     */
+    public Page<OrderListDto> searchOrderList(OrderSearch orderSearch, Pageable pageable) {
+        OrderSearchCache.CachedPage cached = orderSearchCache.get(orderSearch, pageable);
+        if (cached != null) {
+            return new PageImpl<>(orderRepository.findListByIds(cached.getOrderIds()), pageable, cached.getTotal());
+        }
+
+        long generation = orderSearchCache.generation();
+        Page<OrderListDto> page = orderRepository.findListPage(orderSearch, pageable, () -> countOrders(orderSearch));
+        orderSearchCache.put(orderSearch, pageable, generation,
+                page.getContent().stream().map(OrderListDto::getOrderId).collect(Collectors.toList()), page.getTotalElements());
+        return page;
     }
 
-    // 검색
-    public List<Order> searchOrder(OrderSearch orderSearch) {
-        return orderRepository.findAll(orderSearch);
+    private long countOrders(OrderSearch orderSearch) {
+        if (!OrderSearchCache.isUnfiltered(orderSearch)) {
+            return orderRepository.count(orderSearch);
+        }
+        Long total = orderSearchCache.unfilteredTotal();
+        if (total == null) {
+            total = orderRepository.count(orderSearch);
+            orderSearchCache.putUnfilteredTotal(total);
+        }
+        return total;
     }
 }
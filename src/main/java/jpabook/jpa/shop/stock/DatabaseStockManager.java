@@ -0,0 +1,32 @@
+package jpabook.jpa.shop.stock;
+
+import jpabook.jpa.shop.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 재고를 매번 DB 에서 조건부 update 로 차감 (기본값)
+ */
+@Component
+@ConditionalOnProperty(name = "shop.stock.ledger.enabled", havingValue = "false", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DatabaseStockManager implements StockManager {
+
+    private final ItemRepository itemRepository;
+
+    @Override
+    public void decrease(Long itemId, int count) {
+        itemRepository.decreaseStock(itemId, count);
+    }
+
+    @Override
+    public void increase(Long itemId, int count) {
+        itemRepository.increaseStock(itemId, count);
+    }
+
+    @Override
+    public void evict(Long itemId) {
+        // 캐시 없음
+    }
+}
@@ -0,0 +1,149 @@
+package jpabook.jpa.shop.stock;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 재고 원장 저널 (append-only 파일)
+ * - 한 줄에 "seq,itemId,delta"
+ * - DB 반영(flush) 때마다 새 파일로 넘기고(rotate), DB 커밋이 끝난 파일만 지운다
+ * - 파일 이름은 첫 seq 기준으로 정렬되도록 zero padding
+ */
+class StockJournal implements Closeable {
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path dir;
+    private final boolean fsync;
+    private final List<Path> sealed = new ArrayList<>();
+
+    private Path currentPath;
+    private FileOutputStream currentOut;
+    private Writer current;
+    private long lastSeq;
+
+    StockJournal(Path dir, boolean fsync) throws IOException {
+        this.dir = dir;
+        this.fsync = fsync;
+        Files.createDirectories(dir);
+    }
+
+    /**
+     * 남아 있는 저널 파일 전부 읽기 (마지막 줄이 쓰다 만 상태면 무시)
+     */
+    synchronized List<Entry> readAll() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Path file : files()) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split(",");
+                    if (parts.length != 3) {
+                        continue;
+                    }
+                    try {
+                        entries.add(new Entry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Integer.parseInt(parts[2])));
+                    } catch (NumberFormatException e) {
+                        // 쓰다 만 줄
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 기존 파일을 모두 지우고 seq 를 이어서 새 파일을 연다 (복구가 끝난 뒤 호출)
+     */
+    synchronized void start(long lastSeq) throws IOException {
+        for (Path file : files()) {
+            Files.delete(file);
+        }
+        this.lastSeq = lastSeq;
+        open();
+    }
+
+    synchronized long append(long itemId, int delta) {
+        long seq = ++lastSeq;
+        try {
+            current.write(seq + "," + itemId + "," + delta + "\n");
+            current.flush(); // 프로세스가 죽어도 OS 버퍼에는 남는다
+            if (fsync) {
+                currentOut.getChannel().force(false); // 전원 장애까지 대비 (느림)
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("재고 저널 기록 실패", e);
+        }
+        return seq;
+    }
+
+    /**
+     * 현재 파일을 닫고 새 파일로 넘긴다
+     *
+     * @return 닫은 파일까지의 마지막 seq
+     */
+    synchronized long rotate() throws IOException {
+        closeCurrent();
+        sealed.add(currentPath);
+        open();
+        return lastSeq;
+    }
+
+    // DB 반영 전까지는 지우면 안 되는 파일들
+    synchronized List<Path> sealedFiles() {
+        return new ArrayList<>(sealed);
+    }
+
+    synchronized void delete(List<Path> files) throws IOException {
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+        sealed.removeAll(files);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeCurrent();
+    }
+
+    private void open() throws IOException {
+        currentPath = dir.resolve(String.format("%s%019d%s", PREFIX, lastSeq + 1, SUFFIX));
+        currentOut = new FileOutputStream(currentPath.toFile(), true);
+        current = new BufferedWriter(new OutputStreamWriter(currentOut, StandardCharsets.UTF_8));
+    }
+
+    private void closeCurrent() throws IOException {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+
+    private List<Path> files() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    static class Entry {
+        final long seq;
+        final long itemId;
+        final int delta;
+
+        Entry(long seq, long itemId, int delta) {
+            this.seq = seq;
+            this.itemId = itemId;
+            this.delta = delta;
+        }
+    }
+}
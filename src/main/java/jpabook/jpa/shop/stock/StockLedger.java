@@ -0,0 +1,290 @@
+package jpabook.jpa.shop.stock;
+
+import jpabook.jpa.shop.catalog.ItemCatalog;
+import jpabook.jpa.shop.domain.item.Item;
+import jpabook.jpa.shop.exception.NotEnoughStockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 메모리 재고 원장 (shop.stock.ledger.enabled=true)
+ *
+ * 부연 설명
+ * - 인기 상품 주문이 item row lock 하나에 줄 서지 않도록, 상품별 재고를 메모리 카운터(CAS)로 차감 / 거절한다
+ * - 변경분(delta)은 상품별로 모아 두었다가 flush-interval-ms 마다 JDBC batch update 로 item 테이블에 반영 (write-behind)
+ * - 모든 변경은 먼저 저널 파일에 seq 와 함께 기록, DB 반영 시 마지막 seq 를 stock_ledger_checkpoint 에 같은 트랜잭션으로 남긴다
+ *     - 재시작하면 checkpoint 이후 저널만 다시 DB 에 반영 (두 번 반영되지 않는다)
+ * - 주문 트랜잭션이 롤백되면 차감한 재고를 되돌린다, 늘리는 쪽(주문 취소)은 커밋된 뒤에 늘린다
+ * - 원장이 켜져 있으면 item 재고는 이 클래스를 통해서만 바꿔야 한다 (관리자 수정은 evict 로 다시 읽어온다)
+ * - 서버 여러 대에서 같은 DB 를 쓰는 구성에는 사용할 수 없다 (카운터가 서버마다 따로 있음)
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory") // ddl-auto 로 테이블이 만들어진 뒤에 복구
+@ConditionalOnProperty(name = "shop.stock.ledger.enabled", havingValue = "true")
+public class StockLedger implements StockManager {
+
+    private static final long CHECKPOINT_ID = 1L;
+
+    private final JdbcTemplate jdbc;
+    private final EntityManagerFactory emf;
+    private final TransactionTemplate transactionTemplate;
+    private final StockJournal journal;
+    private final ItemCatalog itemCatalog;
+
+    private final Map<Long, AtomicInteger> available = new ConcurrentHashMap<>();
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock(); // read: 변경 기록, write: flush 대상 교체
+    private volatile Map<Long, Integer> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StockLedger(JdbcTemplate jdbc,
+                       EntityManagerFactory emf,
+                       PlatformTransactionManager transactionManager,
+                       ItemCatalog itemCatalog,
+                       @Value("${shop.stock.ledger.journal-dir:./stock-journal}") String journalDir,
+                       @Value("${shop.stock.ledger.fsync:false}") boolean fsync) throws IOException {
+        this(jdbc, emf, transactionManager, itemCatalog, Paths.get(journalDir), fsync);
+    }
+
+    StockLedger(JdbcTemplate jdbc, EntityManagerFactory emf, PlatformTransactionManager transactionManager,
+                ItemCatalog itemCatalog, Path journalDir, boolean fsync) throws IOException {
+        this.jdbc = jdbc;
+        this.emf = emf;
+        this.itemCatalog = itemCatalog;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // evict 처럼 다른 트랜잭션 안에서 불려도, 반영 + checkpoint 는 따로 커밋해야 저널 삭제와 맞는다
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.journal = new StockJournal(journalDir, fsync);
+    }
+
+    /**
+     * 저널 복구
+     * - checkpoint row 가 없으면 새로 만든 DB 이므로 남아있는 저널은 버린다
+     */
+    @PostConstruct
+    public void recover() throws IOException {
+        Long checkpoint;
+        try {
+            checkpoint = jdbc.queryForObject("select last_seq from stock_ledger_checkpoint where id = ?", Long.class, CHECKPOINT_ID);
+        } catch (EmptyResultDataAccessException e) {
+            checkpoint = null;
+        }
+
+        if (checkpoint == null) {
+            jdbc.update("insert into stock_ledger_checkpoint (id, last_seq) values (?, 0)", CHECKPOINT_ID);
+            journal.start(0);
+            return;
+        }
+
+        Map<Long, Integer> deltas = new HashMap<>();
+        long lastSeq = checkpoint;
+        for (StockJournal.Entry entry : journal.readAll()) {
+            if (entry.seq > checkpoint) {
+                deltas.merge(entry.itemId, entry.delta, Integer::sum);
+                lastSeq = Math.max(lastSeq, entry.seq);
+            }
+        }
+        if (lastSeq > checkpoint) {
+            apply(deltas, lastSeq);
+            log.info("재고 저널 복구: seq {} ~ {}, 상품 {}개", checkpoint + 1, lastSeq, deltas.size());
+        }
+        journal.start(lastSeq);
+    }
+
+    @Override
+    public void decrease(Long itemId, int count) {
+        AtomicInteger stock = stock(itemId);
+        int current;
+        do {
+            current = stock.get();
+            if (current < count) {
+                throw new NotEnoughStockException("need more stock");
+            }
+        } while (!stock.compareAndSet(current, current - count));
+
+        record(itemId, -count);
+
+        // 주문 트랜잭션이 롤백되면 차감 취소
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        add(itemId, count);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 트랜잭션 안이면 커밋된 뒤에 늘린다 (취소 트랜잭션이 롤백되면 재고도 그대로)
+     */
+    @Override
+    public void increase(Long itemId, int count) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(itemId, count);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(itemId, count);
+            }
+        });
+    }
+
+    /**
+     * 쌓인 변경분을 먼저 DB 에 반영하고, 트랜잭션이 끝나면 카운터를 버린다 (다음 주문 때 관리자가 바꾼 재고를 다시 읽는다)
+     */
+    @Override
+    public void evict(Long itemId) {
+        flush();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    available.remove(itemId);
+                }
+            });
+        } else {
+            available.remove(itemId);
+        }
+    }
+
+    /**
+     * 모아둔 변경분을 DB 에 반영 (write-behind)
+     * - 실패하면 변경분을 다시 pending 에 합쳐두고 다음 주기에 재시도, 저널 파일도 그때까지 남겨둔다
+     */
+    @Scheduled(fixedDelayString = "${shop.stock.ledger.flush-interval-ms:200}")
+    public synchronized void flush() {
+        Map<Long, Integer> deltas;
+        long lastSeq;
+        flushLock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            deltas = pending;
+            pending = new ConcurrentHashMap<>();
+            lastSeq = journal.rotate();
+        } catch (IOException e) {
+            log.error("재고 저널 rotate 실패", e);
+            return;
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+
+        List<Path> sealed = journal.sealedFiles();
+        try {
+            apply(deltas, lastSeq);
+        } catch (RuntimeException e) {
+            log.error("재고 DB 반영 실패, 다음 주기에 재시도", e);
+            flushLock.readLock().lock();
+            try {
+                deltas.forEach((itemId, delta) -> pending.merge(itemId, delta, Integer::sum));
+            } finally {
+                flushLock.readLock().unlock();
+            }
+            return;
+        }
+
+        try {
+            journal.delete(sealed);
+        } catch (IOException e) {
+            log.warn("반영이 끝난 재고 저널 삭제 실패 (재시작 시 checkpoint 이전이므로 무시된다)", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        flush();
+        journal.close();
+    }
+
+    private void apply(Map<Long, Integer> deltas, long lastSeq) {
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((itemId, delta) -> {
+            if (delta != 0) {
+                rows.add(new Object[]{delta, itemId});
+            }
+        });
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbc.batchUpdate("update item set stock_quantity = stock_quantity + ? where item_id = ?", rows);
+            jdbc.update("update stock_ledger_checkpoint set last_seq = ? where id = ?", lastSeq, CHECKPOINT_ID);
+        });
+
+        // JDBC 로 바꿨으므로 2차 캐시의 상품은 직접 지운다, 카탈로그 재고도 다시 읽도록
+        deltas.keySet().forEach(itemId -> {
+            emf.getCache().evict(Item.class, itemId);
+            itemCatalog.markChanged(itemId);
+        });
+    }
+
+    private void add(Long itemId, int count) {
+        stock(itemId).addAndGet(count);
+        record(itemId, count);
+    }
+
+    private void record(Long itemId, int delta) {
+        flushLock.readLock().lock();
+        try {
+            journal.append(itemId, delta);
+            pending.merge(itemId, delta, Integer::sum);
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    private AtomicInteger stock(Long itemId) {
+        AtomicInteger stock = available.get(itemId);
+        return stock != null ? stock : load(itemId);
+    }
+
+    // 처음 쓰는 상품이면 DB 재고 + 아직 반영 안 된 변경분으로 카운터를 만든다
+    // flush 와 같은 모니터로 막아서, 교체된 변경분이 DB 에 반영되는 도중의 값을 읽지 않게 한다
+    private synchronized AtomicInteger load(Long itemId) {
+        AtomicInteger stock = available.get(itemId);
+        if (stock != null) {
+            return stock;
+        }
+
+        Integer quantity;
+        try {
+            quantity = jdbc.queryForObject("select stock_quantity from item where item_id = ?", Integer.class, itemId);
+        } catch (EmptyResultDataAccessException e) {
+            throw new IllegalStateException("상품이 존재하지 않습니다. itemId = " + itemId);
+        }
+        stock = new AtomicInteger(quantity + pending.getOrDefault(itemId, 0));
+        available.put(itemId, stock);
+        return stock;
+    }
+}
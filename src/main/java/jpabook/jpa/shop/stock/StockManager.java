@@ -0,0 +1,23 @@
+package jpabook.jpa.shop.stock;
+
+import jpabook.jpa.shop.exception.NotEnoughStockException;
+
+/**
+ * 상품 재고 차감 / 원복
+ * - 기본은 DB 조건부 update (DatabaseStockManager)
+ * - shop.stock.ledger.enabled=true 면 메모리 원장에서 처리하고 DB 에는 모아서 반영 (StockLedger)
+ */
+public interface StockManager {
+
+    /**
+     * @throws NotEnoughStockException 재고 부족
+     */
+    void decrease(Long itemId, int count);
+
+    void increase(Long itemId, int count);
+
+    /**
+     * 관리자가 재고를 직접 수정할 때 호출 (캐시된 재고가 있으면 버린다)
+     */
+    void evict(Long itemId);
+}
@@ -0,0 +1,71 @@
+package jpabook.jpa.shop.api;
+
+import jpabook.jpa.shop.domain.Address;
+import jpabook.jpa.shop.domain.Member;
+import jpabook.jpa.shop.domain.item.Book;
+import jpabook.jpa.shop.service.ItemService;
+import jpabook.jpa.shop.service.MemberService;
+import jpabook.jpa.shop.service.OrderService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 엔티티를 그대로 반환하는 v1 API (open-in-view: false)
+ * - 트랜잭션이 끝난 뒤 Jackson 이 직렬화하므로, 테스트에 @Transactional 을 붙이면 지연 로딩이 되어 문제를 못 잡는다
+ * - 운영 설정처럼 open-in-view 를 끄고, 컨텍스트가 따로 뜨므로 DB 도 따로 쓴다
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.jpa.open-in-view=false",
+        "spring.datasource.url=jdbc:h2:mem:entity-api"
+})
+@AutoConfigureMockMvc
+public class EntityAPIControllerTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired OrderService orderService;
+
+    @Before
+    public void 주문_하나() {
+        Member member = new Member();
+        member.setUsername("회원-" + UUID.randomUUID());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberService.save(member);
+
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.save(book);
+
+        orderService.order(member.getId(), book.getId(), 1);
+    }
+
+    @Test
+    public void 주문_엔티티_목록() throws Exception {
+        mockMvc.perform(get("/api/v1/orders")).andExpect(status().isOk());
+    }
+
+    @Test
+    public void 주문_엔티티_단순_목록() throws Exception {
+        mockMvc.perform(get("/api/v1/simple-orders")).andExpect(status().isOk());
+    }
+
+    @Test
+    public void 회원_엔티티_목록() throws Exception {
+        mockMvc.perform(get("/api/v1/members")).andExpect(status().isOk());
+    }
+}
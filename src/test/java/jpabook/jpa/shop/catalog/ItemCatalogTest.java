@@ -0,0 +1,103 @@
+package jpabook.jpa.shop.catalog;
+
+import jpabook.jpa.shop.domain.item.Book;
+import jpabook.jpa.shop.service.ItemService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ItemCatalogTest {
+
+    @Autowired ItemCatalog itemCatalog;
+    @Autowired ItemService itemService;
+
+    @Test
+    public void 바뀐_상품만_id_순서대로_다시_반영한다() throws Exception {
+        ItemCatalog.Snapshot snapshot = ItemCatalog.Snapshot.of(Arrays.asList(
+                new ItemCatalog.Row(1, "시골 JPA", 10000, 10),
+                new ItemCatalog.Row(3, "도시 JPA", 20000, 5),
+                new ItemCatalog.Row(5, null, 30000, 1)));
+
+        // 3 수정, 4 추가, 5 삭제
+        ItemCatalog.Snapshot patched = snapshot.patch(Arrays.asList(3L, 4L, 5L), Arrays.asList(
+                new ItemCatalog.Row(4, "새 JPA", 15000, 7),
+                new ItemCatalog.Row(3, "도시 JPA 2판", 22000, 4)));
+
+        List<CatalogItem> items = patched.items();
+        assertEquals(Arrays.asList(1L, 3L, 4L), items.stream().map(CatalogItem::getId).collect(Collectors.toList()));
+        assertEquals("도시 JPA 2판", items.get(1).getName());
+        assertEquals(22000, items.get(1).getPrice());
+        assertEquals(4, items.get(1).getStockQuantity());
+        assertEquals("시골 JPA", patched.name(patched.indexOf(1)));
+        assertEquals("", snapshot.name(snapshot.indexOf(5)));
+        assertEquals(Map.of(1L, 10000, 4L, 15000), patched.prices(Arrays.asList(1L, 4L, 5L)));
+    }
+
+    @Test
+    public void 바뀌지_않은_구간은_이름과_값이_그대로_남는다() throws Exception {
+        ItemCatalog.Snapshot snapshot = ItemCatalog.Snapshot.of(Arrays.asList(
+                new ItemCatalog.Row(1, "가", 100, 1),
+                new ItemCatalog.Row(2, "나나", 200, 2),
+                new ItemCatalog.Row(4, null, 400, 4),
+                new ItemCatalog.Row(6, "라라라", 600, 6),
+                new ItemCatalog.Row(8, "마", 800, 8)));
+
+        // 1 삭제, 3 추가(사이), 6 수정, 7 은 바뀌었다고 했지만 없는 상품, 9 추가(끝)
+        ItemCatalog.Snapshot patched = snapshot.patch(Arrays.asList(1L, 3L, 6L, 7L, 9L), Arrays.asList(
+                new ItemCatalog.Row(9, "사", 900, 9),
+                new ItemCatalog.Row(6, "바", 650, 5),
+                new ItemCatalog.Row(3, "다다다다", 300, 3)));
+
+        List<String> expected = rows(ItemCatalog.Snapshot.of(Arrays.asList(
+                new ItemCatalog.Row(2, "나나", 200, 2),
+                new ItemCatalog.Row(3, "다다다다", 300, 3),
+                new ItemCatalog.Row(4, null, 400, 4),
+                new ItemCatalog.Row(6, "바", 650, 5),
+                new ItemCatalog.Row(8, "마", 800, 8),
+                new ItemCatalog.Row(9, "사", 900, 9))));
+        assertEquals(expected, rows(patched));
+        assertEquals(expected.size(), patched.size());
+        assertEquals(snapshot.footprint().getNameChars() - 1 - 3 + 4 + 1 + 1, patched.footprint().getNameChars());
+    }
+
+    @Test
+    public void 커밋된_상품은_다음_조회에_반영된다() throws Exception {
+        Book book = new Book();
+        book.setName("카탈로그 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.save(book); // 트랜잭션 커밋
+
+        ItemCatalog.Snapshot snapshot = itemCatalog.snapshot();
+        int index = snapshot.indexOf(book.getId());
+        assertTrue(index >= 0);
+        assertEquals("카탈로그 JPA", snapshot.name(index));
+
+        itemService.updateItem(book.getId(), 12000, "카탈로그 JPA 2판", 3);
+
+        snapshot = itemCatalog.snapshot();
+        index = snapshot.indexOf(book.getId());
+        assertEquals("카탈로그 JPA 2판", snapshot.name(index));
+        assertEquals(12000, snapshot.price(index));
+        assertEquals(3, snapshot.stockQuantity(index));
+        assertTrue(snapshot.footprint().getBytes() > 0);
+    }
+
+    private List<String> rows(ItemCatalog.Snapshot snapshot) {
+        return snapshot.items().stream()
+                .map(item -> item.getId() + ":" + item.getName() + ":" + item.getPrice() + ":" + item.getStockQuantity())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,84 @@
+package jpabook.jpa.shop.category;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ItemBitmapTest {
+
+    @Test
+    public void 집합_연산은_TreeSet_과_같다() throws Exception {
+        Random random = new Random(42);
+        // 촘촘한 구간(bitmap 묶음) + 듬성듬성한 구간(배열 묶음) + 여러 상위 16bit 묶음
+        TreeSet<Long> a = randomIds(random, 0, 20_000, 15_000);
+        a.addAll(randomIds(random, 1L << 20, 1_000_000, 300));
+        TreeSet<Long> b = randomIds(random, 5_000, 30_000, 12_000);
+        b.addAll(randomIds(random, 1L << 20, 1_000_000, 300));
+        b.add(0xFFFFFFFFL);
+
+        ItemBitmap bitmapA = ItemBitmap.of(toArray(a));
+        ItemBitmap bitmapB = ItemBitmap.of(toArray(b));
+
+        TreeSet<Long> and = new TreeSet<>(a);
+        and.retainAll(b);
+        TreeSet<Long> or = new TreeSet<>(a);
+        or.addAll(b);
+        TreeSet<Long> andNot = new TreeSet<>(a);
+        andNot.removeAll(b);
+
+        assertEquals(new ArrayList<>(a), bitmapA.ids());
+        assertEquals(new ArrayList<>(and), bitmapA.and(bitmapB).ids());
+        assertEquals(new ArrayList<>(or), bitmapA.or(bitmapB).ids());
+        assertEquals(new ArrayList<>(andNot), bitmapA.andNot(bitmapB).ids());
+        assertEquals(or.size(), bitmapA.or(bitmapB).cardinality());
+    }
+
+    @Test
+    public void 페이지는_오름차순으로_잘린다() throws Exception {
+        TreeSet<Long> ids = randomIds(new Random(7), 0, 200_000, 50_000);
+        List<Long> expected = new ArrayList<>(ids);
+        ItemBitmap bitmap = ItemBitmap.of(toArray(ids));
+
+        assertEquals(expected.subList(0, 20), bitmap.ids(0, 20));
+        assertEquals(expected.subList(30_000, 30_100), bitmap.ids(30_000, 100));
+        assertEquals(expected.subList(49_990, 50_000), bitmap.ids(49_990, 100));
+        assertTrue(bitmap.ids(50_000, 100).isEmpty());
+    }
+
+    @Test
+    public void with_는_새_bitmap_을_돌려준다() throws Exception {
+        ItemBitmap bitmap = ItemBitmap.of(1, 3);
+
+        ItemBitmap added = bitmap.with(70_000);
+
+        assertFalse(bitmap.contains(70_000));
+        assertTrue(added.contains(70_000));
+        assertEquals(List.of(1L, 3L, 70_000L), added.ids());
+        assertSame(added, added.with(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 범위를_넘는_id_는_넣을_수_없다() throws Exception {
+        ItemBitmap.of(1L << 32);
+    }
+
+    private static TreeSet<Long> randomIds(Random random, long from, int range, int count) {
+        TreeSet<Long> ids = new TreeSet<>();
+        while (ids.size() < count) {
+            ids.add(from + random.nextInt(range));
+        }
+        return ids;
+    }
+
+    private static long[] toArray(TreeSet<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+}
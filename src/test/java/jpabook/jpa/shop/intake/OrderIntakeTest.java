@@ -0,0 +1,79 @@
+package jpabook.jpa.shop.intake;
+
+import jpabook.jpa.shop.domain.Address;
+import jpabook.jpa.shop.domain.Member;
+import jpabook.jpa.shop.domain.item.Book;
+import jpabook.jpa.shop.dto.request.OrderRequestDTO;
+import jpabook.jpa.shop.service.OrderService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 워커 스레드가 각자 트랜잭션을 커밋하므로 테스트에 @Transactional 을 붙이지 않는다
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class OrderIntakeTest {
+
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired OrderService orderService;
+
+    @Test
+    public void 접수한_주문을_묶어서_커밋한다() throws Exception {
+        //given
+        Long memberId = transactionTemplate.execute(status -> createMember().getId());
+        Long itemId = transactionTemplate.execute(status -> createBook(100).getId());
+        OrderIntake intake = new OrderIntake(orderService, 1000, 2, 50, 600);
+
+        //when
+        List<OrderTicket> tickets = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            tickets.add(intake.submit(new OrderRequestDTO(memberId, itemId, 1)));
+        }
+        for (OrderTicket ticket : tickets) {
+            ticket.getResult().get(10, TimeUnit.SECONDS);
+        }
+        intake.shutdown();
+
+        //then
+        long ordered = tickets.stream().filter(t -> t.getStatus() == OrderTicket.Status.ORDERED).count();
+        long rejected = tickets.stream().filter(t -> t.getStatus() == OrderTicket.Status.REJECTED).count();
+        OrderIntake.IntakeStats stats = intake.stats();
+
+        assertEquals("재고만큼 주문", 100, ordered);
+        assertEquals("나머지는 재고 부족", 20, rejected);
+        assertEquals(120, stats.getAccepted());
+        assertTrue("여러 주문을 한 트랜잭션에 커밋, batches = " + stats.getBatches(), stats.getBatches() < 120);
+    }
+
+    private Book createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("접수 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        em.persist(book);
+        return book;
+    }
+
+    private Member createMember() {
+        Member member = new Member();
+        member.setUsername("회원-" + UUID.randomUUID()); // 커밋되므로 username unique 제약에 걸리지 않게
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        return member;
+    }
+}
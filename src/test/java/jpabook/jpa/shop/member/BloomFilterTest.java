@@ -0,0 +1,36 @@
+package jpabook.jpa.shop.member;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+public class BloomFilterTest {
+
+    @Test
+    public void 넣은_값은_항상_있다고_답한다() throws Exception {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("member-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("member-" + i));
+        }
+    }
+
+    @Test
+    public void 넣지_않은_값의_오탐률은_목표_근처다() throws Exception {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("member-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("new-member-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue("오탐률 = " + falsePositives / 100_000.0, falsePositives < 2_000); // 목표 1%, 여유 2%
+    }
+}
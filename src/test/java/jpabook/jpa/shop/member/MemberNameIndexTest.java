@@ -0,0 +1,78 @@
+package jpabook.jpa.shop.member;
+
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MemberNameIndexTest {
+
+    @Test
+    public void 이름_일부로_회원을_찾는다() throws Exception {
+        MemberNameIndex index = newIndex(10);
+
+        assertEquals(Set.of(1L, 2L), index.search("kim"));
+        assertEquals("대소문자 무시", Set.of(2L), index.search("MSOO"));
+        assertEquals("trigram 이 모두 있어도 이어져 있지 않으면 제외", Set.of(), index.search("abcab"));
+        assertEquals("3글자 미만은 전체를 훑는다", Set.of(1L, 3L), index.search("ee"));
+    }
+
+    @Test
+    public void 이름을_바꾸면_예전_이름으로는_찾지_않는다() throws Exception {
+        MemberNameIndex index = newIndex(10);
+
+        index.put(1L, "park");
+
+        assertEquals(Set.of(2L), index.search("kim"));
+        assertEquals(Set.of(1L), index.search("par"));
+    }
+
+    @Test
+    public void 색인이_없거나_후보가_너무_많으면_null() throws Exception {
+        assertNull("만들기 전", new MemberNameIndex(null, 10).search("kim"));
+        assertNull("후보 초과", newIndex(1).search("kim"));
+    }
+
+    @Test
+    public void 전체를_다시_읽는_동안_바뀐_이름은_새_색인에_남는다() throws Exception {
+        //given : DB 에는 예전 이름, 읽는 도중에 이름 변경이 커밋된다
+        MemberNameIndex[] holder = new MemberNameIndex[1];
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:name-index;DB_CLOSE_DELAY=-1", "sa", "")) {
+            @Override
+            public void query(String sql, RowCallbackHandler rch) {
+                holder[0].put(1L, "parkjisung"); // 커밋된 이름 변경의 afterCommit
+                super.query(sql, rch);
+            }
+        };
+        jdbc.execute("create table member (member_id bigint primary key, username varchar(255))");
+        jdbc.update("insert into member values (1, 'kimminjae'), (2, 'leesoo')");
+        MemberNameIndex index = new MemberNameIndex(jdbc, 10);
+        holder[0] = index;
+
+        //when
+        index.rebuild();
+
+        //then
+        assertEquals(Set.of(1L), index.search("jisung"));
+        assertEquals(Set.of(), index.search("minjae"));
+        assertEquals(Set.of(2L), index.search("soo"));
+    }
+
+    private MemberNameIndex newIndex(int maxCandidates) {
+        MemberNameIndex index = new MemberNameIndex(null, maxCandidates);
+        Map<Long, String> members = new HashMap<>();
+        members.put(1L, "kimlee-a");
+        members.put(2L, "Kimsoo");
+        members.put(3L, "leesoon");
+        members.put(4L, "abc-bca-cab");
+        index.rebuild(members);
+        return index;
+    }
+}
@@ -0,0 +1,39 @@
+package jpabook.jpa.shop.monitor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class SqlRequestContextTest {
+
+    @Test
+    public void 바인딩_값만_다른_SQL_은_같은_모양이다() throws Exception {
+        assertEquals(
+                SqlRequestContext.fingerprint("select * from member where member_id = 1"),
+                SqlRequestContext.fingerprint("SELECT *  FROM member\n where member_id = 2"));
+        assertEquals(
+                SqlRequestContext.fingerprint("select * from member where username = 'kim'"),
+                SqlRequestContext.fingerprint("select * from member where username = 'it''s'"));
+        assertEquals(
+                SqlRequestContext.fingerprint("select * from item where item_id in (?, ?)"),
+                SqlRequestContext.fingerprint("select * from item where item_id in (?,?,?,?)"));
+    }
+
+    @Test
+    public void 요청_안에서_모양별로_실행_횟수를_센다() throws Exception {
+        SqlRequestContext context = SqlRequestContext.start("test");
+        try {
+            context.record("select * from delivery where delivery_id=?", 10);
+            context.record("select * from delivery where delivery_id=?", 10);
+            context.record("select * from orders", 10);
+
+            assertEquals(3, context.getStatementCount());
+            assertEquals(30, context.getJdbcNanos());
+            assertEquals(Integer.valueOf(2), context.getFingerprintCounts().get("select * from delivery where delivery_id=?"));
+        } finally {
+            SqlRequestContext.finish();
+        }
+        assertNotEquals(context, SqlRequestContext.current());
+    }
+}
@@ -0,0 +1,52 @@
+package jpabook.jpa.shop.repository;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InClauseChunksTest {
+
+    @Test
+    public void 남은_id_는_가장_가까운_고정_크기로_채운다() throws Exception {
+        List<List<Long>> chunks = InClauseChunks.split(ids(20));
+
+        assertEquals(1, chunks.size());
+        assertEquals("20개는 64 묶음으로 채운다", 64, chunks.get(0).size());
+        assertEquals("빈 자리는 마지막 id 로 채운다", Long.valueOf(20), chunks.get(0).get(63));
+    }
+
+    @Test
+    public void 큰_목록은_최대_크기로_자르고_모든_id_를_포함한다() throws Exception {
+        List<Long> ids = ids(600);
+
+        List<List<Long>> chunks = InClauseChunks.split(ids);
+
+        assertEquals(3, chunks.size()); // 256 + 256 + (88 -> 256)
+        LinkedHashSet<Long> merged = new LinkedHashSet<>();
+        for (List<Long> chunk : chunks) {
+            assertTrue(Arrays.stream(InClauseChunks.CHUNK_SIZES).anyMatch(size -> size == chunk.size()));
+            merged.addAll(chunk);
+        }
+        assertEquals(new ArrayList<>(ids), new ArrayList<>(merged));
+    }
+
+    @Test
+    public void 빈_목록은_조회하지_않는다() throws Exception {
+        assertTrue(InClauseChunks.split(Collections.<Long>emptyList()).isEmpty());
+    }
+
+    private List<Long> ids(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            ids.add(i);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,173 @@
+package jpabook.jpa.shop.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpa.shop.domain.Delivery;
+import jpabook.jpa.shop.domain.Member;
+import jpabook.jpa.shop.domain.Order;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 주문 keyset 커서 (OrderCursor + OrderRepository.findAllWithMemberDelivery + GET /api/v3.2/orders)
+ * - MockMvc 는 테스트 스레드에서 돌므로 테스트 트랜잭션 안의 주문도 보인다
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderCursorTest {
+
+    private static final LocalDateTime SAME_DATE = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    @Autowired EntityManager em;
+    @Autowired WebApplicationContext context;
+    @Autowired ObjectMapper objectMapper;
+
+    private MockMvc mockMvc;
+    private final List<Long> orderIds = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        Member member = new Member();
+        member.setUsername("회원-" + UUID.randomUUID());
+        em.persist(member);
+        for (int i = 0; i < 5; i++) {
+            Order order = Order.createOrder(member, new Delivery());
+            order.setOrderDate(SAME_DATE); // orderDate 가 같으면 order_id 로 순서를 정한다
+            em.persist(order);
+            orderIds.add(order.getId());
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void ID_정렬_커서는_인코딩_후_그대로_복원된다() throws Exception {
+        Order last = em.find(Order.class, orderIds.get(2));
+
+        OrderCursor decoded = OrderCursor.decode(OrderCursor.after(OrderCursor.Sort.ID, last).encode());
+
+        assertEquals(OrderCursor.Sort.ID, decoded.getSort());
+        assertEquals(last.getId(), decoded.getLastOrderId());
+        assertNull(decoded.getLastOrderDate());
+    }
+
+    @Test
+    public void 주문일시_정렬_커서는_인코딩_후_그대로_복원된다() throws Exception {
+        Order last = em.find(Order.class, orderIds.get(2));
+        last.setOrderDate(LocalDateTime.of(2022, 5, 28, 13, 45, 7, 123456000));
+
+        OrderCursor decoded = OrderCursor.decode(OrderCursor.after(OrderCursor.Sort.ORDER_DATE, last).encode());
+
+        assertEquals(OrderCursor.Sort.ORDER_DATE, decoded.getSort());
+        assertEquals(last.getId(), decoded.getLastOrderId());
+        assertEquals(last.getOrderDate(), decoded.getLastOrderDate());
+    }
+
+    @Test
+    public void 잘못된_토큰은_IllegalArgumentException() throws Exception {
+        String valid = OrderCursor.after(OrderCursor.Sort.ORDER_DATE, em.find(Order.class, orderIds.get(0))).encode();
+        String[] tokens = {
+                "!!not-base64!!",
+                encode("NAME|1"),
+                encode("ID"),
+                encode("ID|abc"),
+                encode("ORDER_DATE|1"),
+                valid.substring(0, valid.length() - 6) // 잘린 토큰
+        };
+
+        for (String token : tokens) {
+            try {
+                OrderCursor.decode(token);
+                fail("잘못된 커서 예외가 발생해야 한다. token = " + token);
+            } catch (IllegalArgumentException e) {
+            }
+        }
+    }
+
+    @Test
+    public void 잘못된_토큰은_400() throws Exception {
+        mockMvc.perform(get("/api/v3.2/orders").param("cursor", "!!not-base64!!"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v3.2/orders").param("cursor", encode("ORDER_DATE|1")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void ID_정렬로_모든_페이지를_넘기면_주문을_한_번씩_순서대로_읽는다() throws Exception {
+        List<Long> expected = em.createQuery("select o.id from Order o order by o.id", Long.class).getResultList();
+
+        List<Long> walked = walk("id");
+
+        assertEquals(expected, walked);
+        assertTrue(walked.containsAll(orderIds));
+    }
+
+    @Test
+    public void 주문일시_정렬로_모든_페이지를_넘기면_같은_일시도_한_번씩_순서대로_읽는다() throws Exception {
+        List<Long> expected = em.createQuery("select o.id from Order o order by o.orderDate, o.id", Long.class).getResultList();
+
+        List<Long> walked = walk("orderDate");
+
+        assertEquals(expected, walked);
+        assertTrue(walked.containsAll(orderIds));
+    }
+
+    // limit 2 로 next 가 null 일 때까지 (마지막 페이지만 next 가 null)
+    private List<Long> walk(String sort) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String next = null;
+        do {
+            JsonNode page = page(sort, next);
+            page.get("data").forEach(order -> ids.add(order.get("orderId").asLong()));
+            next = page.get("next").isNull() ? null : page.get("next").asText();
+            if (next != null) {
+                assertEquals("다음 페이지가 있으면 꽉 찬 페이지", 2, page.get("data").size());
+            }
+        } while (next != null);
+        return ids;
+    }
+
+    private JsonNode page(String sort, String cursor) throws Exception {
+        MockHttpServletRequestBuilder request = get("/api/v3.2/orders")
+                .param("sort", sort)
+                .param("limit", "2");
+        if (cursor != null) {
+            request.param("cursor", cursor);
+        }
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
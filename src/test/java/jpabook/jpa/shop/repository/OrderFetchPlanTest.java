@@ -0,0 +1,96 @@
+package jpabook.jpa.shop.repository;
+
+import jpabook.jpa.shop.domain.Member;
+import jpabook.jpa.shop.domain.Order;
+import jpabook.jpa.shop.domain.OrderItem;
+import jpabook.jpa.shop.domain.item.Book;
+import jpabook.jpa.shop.service.ItemService;
+import jpabook.jpa.shop.service.MemberService;
+import jpabook.jpa.shop.service.OrderService;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * open-in-view: false 인 컨트롤러처럼 트랜잭션 밖에서 조회하고, 트랜잭션 밖에서 연관관계를 쓴다
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:fetchplan", // 컨텍스트가 다르므로 DB(시퀀스)도 따로
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class OrderFetchPlanTest {
+
+    @Autowired OrderRepository orderRepository;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired EntityManagerFactory emf;
+
+    private Long orderId;
+
+    @Before
+    public void setUp() {
+        Member member = new Member();
+        member.setUsername("회원-" + UUID.randomUUID());
+        Long memberId = memberService.save(member);
+
+        Book book1 = new Book();
+        book1.setName("시골 JPA");
+        book1.setPrice(10000);
+        book1.setStockQuantity(10);
+        itemService.save(book1);
+        Book book2 = new Book();
+        book2.setName("도시 JPA");
+        book2.setPrice(20000);
+        book2.setStockQuantity(10);
+        itemService.save(book2);
+
+        orderId = orderService.order(memberId, book1.getId(), 1);
+    }
+
+    @Test
+    public void SUMMARY_는_회원과_배송까지만_읽는다() throws Exception {
+        Order order = orderRepository.findById(orderId, OrderFetchPlan.SUMMARY);
+
+        assertTrue(Hibernate.isInitialized(order.getMember()));
+        assertTrue(Hibernate.isInitialized(order.getDelivery()));
+        assertFalse(Hibernate.isInitialized(order.getOrderItems()));
+    }
+
+    @Test
+    public void WITH_ITEMS_AND_PRODUCTS_는_주문상품과_상품까지_쿼리_2번에_읽는다() throws Exception {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Order> orders = orderRepository.findAllByIds(List.of(orderId), OrderFetchPlan.WITH_ITEMS_AND_PRODUCTS);
+
+        assertEquals("주문 1번 + 주문상품 1번", 2, statistics.getPrepareStatementCount());
+        OrderItem orderItem = orders.get(0).getOrderItems().get(0);
+        assertTrue(Hibernate.isInitialized(orderItem.getItem()));
+        assertEquals("시골 JPA", orderItem.getItem().getName());
+        assertEquals("트랜잭션 밖에서 쓴 연관관계로 쿼리가 더 나가지 않는다", 2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void WITH_ITEMS_는_상품을_읽지_않는다() throws Exception {
+        List<Order> orders = orderRepository.findAllByIds(List.of(orderId), OrderFetchPlan.WITH_ITEMS);
+
+        assertTrue(Hibernate.isInitialized(orders.get(0).getOrderItems()));
+        assertFalse(Hibernate.isInitialized(orders.get(0).getOrderItems().get(0).getItem()));
+    }
+}
@@ -0,0 +1,85 @@
+package jpabook.jpa.shop.repository.item.query;
+
+import jpabook.jpa.shop.domain.item.Album;
+import jpabook.jpa.shop.domain.item.Book;
+import jpabook.jpa.shop.domain.item.Item;
+import jpabook.jpa.shop.domain.item.Movie;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class ItemQueryRepositoryTest {
+
+    @Autowired EntityManager em;
+    @Autowired ItemQueryRepository itemQueryRepository;
+
+    @Test
+    public void 도서_목록은_도서_row_만_읽는다() throws Exception {
+        // given
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        book.setAuthor("김영한");
+        book.setIsbn("isbn-1");
+        Album album = new Album();
+        album.setName("앨범");
+        album.setArtist("아티스트");
+        Movie movie = new Movie();
+        movie.setName("영화");
+        movie.setDirector("감독");
+        persist(book, album, movie);
+        long books = em.createQuery("select count(b) from Book b", Long.class).getSingleResult();
+
+        // when
+        Page<BookDto> page = itemQueryRepository.findBooks(PageRequest.of(0, 100));
+
+        // then
+        List<Long> ids = page.getContent().stream().map(BookDto::getId).collect(Collectors.toList());
+        assertTrue(ids.contains(book.getId()));
+        assertFalse(ids.contains(album.getId()));
+        assertFalse(ids.contains(movie.getId()));
+        assertEquals(books, page.getTotalElements());
+
+        BookDto found = itemQueryRepository.findBook(book.getId());
+        assertEquals("김영한", found.getAuthor());
+        assertEquals("isbn-1", found.getIsbn());
+        assertEquals("아티스트", itemQueryRepository.findAlbum(album.getId()).getArtist());
+        assertEquals("감독", itemQueryRepository.findMovie(movie.getId()).getDirector());
+    }
+
+    @Test
+    public void 다른_타입의_id_로_조회하면_null() throws Exception {
+        Album album = new Album();
+        album.setName("앨범");
+        persist(album);
+
+        assertNull(itemQueryRepository.findBook(album.getId()));
+        assertNull(itemQueryRepository.findMovie(album.getId()));
+    }
+
+    private void persist(Item... items) {
+        for (Item item : items) {
+            em.persist(item);
+        }
+        em.flush();
+        em.clear();
+    }
+}
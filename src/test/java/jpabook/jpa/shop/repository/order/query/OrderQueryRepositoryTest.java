@@ -0,0 +1,79 @@
+package jpabook.jpa.shop.repository.order.query;
+
+import jpabook.jpa.shop.domain.*;
+import jpabook.jpa.shop.domain.item.Book;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderQueryRepositoryTest {
+
+    @Autowired EntityManager em;
+    @Autowired OrderQueryRepository orderQueryRepository;
+
+    @Test
+    public void flat_조회를_v5와_같은_구조로_묶는다() throws Exception {
+        //given
+        createOrder("회원1", 3);
+        createOrder("회원2", 1);
+        em.flush();
+        em.clear();
+
+        //when
+        List<OrderQueryDto> v6 = orderQueryRepository.findAllByDto_flatNested();
+        List<OrderQueryDto> v5 = orderQueryRepository.findAllByDto_optimization().stream()
+                .sorted(Comparator.comparing(OrderQueryDto::getOrderId))
+                .collect(Collectors.toList());
+
+        //then
+        assertEquals("주문 수가 같아야 한다", v5.size(), v6.size());
+        for (int i = 0; i < v5.size(); i++) {
+            OrderQueryDto expected = v5.get(i);
+            OrderQueryDto actual = v6.get(i);
+            assertEquals(expected.getOrderId(), actual.getOrderId());
+            assertEquals(expected.getUsername(), actual.getUsername());
+            assertEquals("주문 상품이 같은 주문으로 묶여야 한다", toItemNames(expected), toItemNames(actual));
+        }
+    }
+
+    private List<String> toItemNames(OrderQueryDto dto) {
+        return dto.getOrderItems().stream()
+                .map(OrderItemQueryDto::getItemName)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private void createOrder(String username, int itemCount) {
+        Member member = new Member();
+        member.setUsername(username);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+
+        OrderItem[] orderItems = new OrderItem[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            Book book = new Book();
+            book.setName(username + " JPA" + i);
+            book.setPrice(10000);
+            book.setStockQuantity(10);
+            em.persist(book);
+            orderItems[i] = OrderItem.createOrderItem(book, 10000, 1);
+        }
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        em.persist(Order.createOrder(member, delivery, orderItems));
+    }
+}
@@ -0,0 +1,157 @@
+package jpabook.jpa.shop.service;
+
+import jpabook.jpa.shop.category.CategoryItemIndex;
+import jpabook.jpa.shop.category.CategoryTree;
+import jpabook.jpa.shop.domain.item.Book;
+import jpabook.jpa.shop.domain.item.Category;
+import jpabook.jpa.shop.domain.item.Item;
+import jpabook.jpa.shop.repository.CategoryRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class CategoryServiceTest {
+
+    @Autowired EntityManager em;
+    @Autowired CategoryService categoryService;
+    @Autowired CategoryRepository categoryRepository;
+    @Autowired CategoryTree categoryTree;
+    @Autowired CategoryItemIndex categoryItemIndex;
+    @Autowired ItemService itemService;
+
+    @Test
+    public void 하위_카테고리_상품까지_페이지로_조회() throws Exception {
+        // given : 도서 > IT > JPA, 도서 > 소설
+        Long books = categoryService.create("도서", null);
+        Long it = categoryService.create("IT", books);
+        Long jpa = categoryService.create("JPA", it);
+        Long novel = categoryService.create("소설", books);
+
+        Long item1 = createBook("자바 ORM 표준 JPA 프로그래밍");
+        Long item2 = createBook("토비의 스프링");
+        Long item3 = createBook("소년이 온다");
+        categoryService.addItem(jpa, item1);
+        categoryService.addItem(it, item1); // 두 하위 카테고리에 속해도 한 번만
+        categoryService.addItem(it, item2);
+        categoryService.addItem(novel, item3);
+        em.flush();
+        em.clear();
+
+        // when
+        Page<Item> page = categoryService.findItems(books, PageRequest.of(0, 2));
+
+        // then
+        assertEquals(List.of(item1, item2), ids(page.getContent()));
+        assertEquals(3, page.getTotalElements());
+        assertEquals(List.of(item1, item2), ids(categoryService.findItems(it, PageRequest.of(0, 10)).getContent()));
+        assertEquals(List.of(item3), ids(categoryService.findItems(novel, PageRequest.of(0, 10)).getContent()));
+    }
+
+    @Test
+    public void 카테고리를_옮기면_하위_카테고리_경로도_바뀐다() throws Exception {
+        // given
+        Long books = categoryService.create("도서", null);
+        Long it = categoryService.create("IT", books);
+        Long jpa = categoryService.create("JPA", it);
+        Long ebooks = categoryService.create("전자책", null);
+
+        // when
+        categoryService.move(it, ebooks);
+        em.clear();
+
+        // then
+        assertEquals("/" + ebooks + "/" + it + "/", categoryRepository.findById(it).getPath());
+        assertEquals("/" + ebooks + "/" + it + "/" + jpa + "/", categoryRepository.findById(jpa).getPath());
+        assertEquals(it, categoryRepository.findById(jpa).getParent().getId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 하위_카테고리_아래로는_옮길_수_없다() throws Exception {
+        Long books = categoryService.create("도서", null);
+        Long it = categoryService.create("IT", books);
+
+        categoryService.move(books, it);
+    }
+
+    @Test
+    public void 트리_스냅샷() throws Exception {
+        // given
+        Long books = categoryService.create("도서", null);
+        Long it = categoryService.create("IT", books);
+        Long jpa = categoryService.create("JPA", it);
+        Long novel = categoryService.create("소설", books);
+        em.flush();
+
+        // when : 테스트 트랜잭션은 커밋되지 않으므로 직접 다시 읽는다
+        categoryTree.refresh();
+        CategoryTree.Snapshot snapshot = categoryTree.snapshot();
+
+        // then
+        assertEquals(List.of(books, it, jpa, novel), snapshot.subtreeIds(books));
+        assertEquals(List.of(it, novel), snapshot.children(books).stream()
+                .map(CategoryTree.Node::getId)
+                .collect(Collectors.toList()));
+        assertEquals("/" + books + "/" + it + "/" + jpa + "/", snapshot.get(jpa).getPath());
+    }
+
+    @Test
+    public void 여러_카테고리_조건으로_상품_거르기() throws Exception {
+        // given : 도서 > IT > JPA, 도서 > 소설, 할인
+        Long books = categoryService.create("도서", null);
+        Long it = categoryService.create("IT", books);
+        Long jpa = categoryService.create("JPA", it);
+        Long novel = categoryService.create("소설", books);
+        Long sale = categoryService.create("할인", null);
+
+        Long item1 = createBook("자바 ORM 표준 JPA 프로그래밍");
+        Long item2 = createBook("토비의 스프링");
+        Long item3 = createBook("소년이 온다");
+        categoryService.addItem(jpa, item1);
+        categoryService.addItem(it, item2);
+        categoryService.addItem(novel, item3);
+        categoryService.addItem(sale, item1);
+        categoryService.addItem(sale, item3);
+        em.flush();
+
+        // 테스트 트랜잭션은 커밋되지 않으므로 직접 다시 읽는다
+        categoryTree.refresh();
+        categoryItemIndex.rebuild();
+
+        // when, then
+        assertEquals("도서(하위 포함) 그리고 할인", List.of(item1, item3),
+                ids(categoryService.filterItems(List.of(books, sale), List.of(), List.of(), PageRequest.of(0, 10)).getContent()));
+        assertEquals("IT 또는 소설, JPA 제외", List.of(item2, item3),
+                ids(categoryService.filterItems(List.of(), List.of(it, novel), List.of(jpa), PageRequest.of(0, 10)).getContent()));
+
+        Page<Item> page = categoryService.filterItems(List.of(books), List.of(), List.of(), PageRequest.of(1, 2));
+        assertEquals(List.of(item3), ids(page.getContent()));
+        assertEquals(3, page.getTotalElements());
+    }
+
+    private Long createBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.save(book);
+        return book.getId();
+    }
+
+    private List<Long> ids(List<Item> items) {
+        return items.stream().map(Item::getId).collect(Collectors.toList());
+    }
+}
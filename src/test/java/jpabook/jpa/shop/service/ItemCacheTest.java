@@ -0,0 +1,150 @@
+package jpabook.jpa.shop.service;
+
+import jpabook.jpa.shop.domain.Address;
+import jpabook.jpa.shop.domain.Member;
+import jpabook.jpa.shop.domain.item.Book;
+import jpabook.jpa.shop.domain.item.Item;
+import jpabook.jpa.shop.exception.NotEnoughStockException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 2차 캐시는 트랜잭션(영속성 컨텍스트) 사이에서만 보이므로 테스트에 @Transactional 을 붙이지 않는다
+ * - 다른 테스트 컨텍스트와 CacheManager / DB 가 섞이지 않도록 DB 를 따로 쓴다
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cache",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+        "spring.jpa.properties.hibernate.cache.region.factory_class=jcache",
+        "spring.jpa.properties.hibernate.javax.cache.provider=org.ehcache.jsr107.EhcacheCachingProvider",
+        "spring.jpa.properties.hibernate.javax.cache.uri=ehcache.xml",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class ItemCacheTest {
+
+    @Autowired EntityManager em;
+    @Autowired EntityManagerFactory emf;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired ItemService itemService;
+    @Autowired MemberService memberService;
+    @Autowired OrderService orderService;
+
+    Statistics statistics;
+
+    @Before
+    public void setUp() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void 상품은_2차_캐시에서_읽는다() throws Exception {
+        //given
+        Long itemId = createBook(10);
+        itemService.findById(itemId);
+        long hits = statistics.getSecondLevelCacheHitCount();
+
+        //when
+        Item item = itemService.findById(itemId);
+
+        //then
+        assertTrue("두 번째 조회는 캐시 hit", statistics.getSecondLevelCacheHitCount() > hits);
+        assertTrue("하위 타입 그대로 캐시된다", item instanceof Book);
+    }
+
+    @Test
+    public void 주문_취소하면_캐시된_재고도_바뀐다() throws Exception {
+        //given
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+        assertEquals(10, itemService.findById(itemId).getStockQuantity());
+
+        //when
+        Long orderId = orderService.order(memberId, itemId, 3);
+
+        //then
+        assertEquals("주문", 7, itemService.findById(itemId).getStockQuantity());
+
+        orderService.cancelOrder(orderId);
+        assertEquals("취소", 10, itemService.findById(itemId).getStockQuantity());
+    }
+
+    @Test
+    public void 재고_부족으로_롤백되면_캐시는_DB_값을_유지한다() throws Exception {
+        //given
+        Long memberId = createMember();
+        Long itemId = createBook(2);
+        assertEquals(2, itemService.findById(itemId).getStockQuantity());
+
+        //when
+        try {
+            orderService.order(memberId, itemId, 3);
+            fail("재고 부족 예외가 발생해야 한다.");
+        } catch (NotEnoughStockException e) {
+        }
+
+        //then
+        assertEquals(2, itemService.findById(itemId).getStockQuantity());
+    }
+
+    @Test
+    public void 상품_회원_수정은_캐시에_반영된다() throws Exception {
+        //given
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+        itemService.findById(itemId);
+        memberService.findById(memberId);
+        int listed = itemService.findAll().size();
+
+        //when
+        itemService.updateItem(itemId, 20000, "수정 JPA", 5);
+        memberService.update(memberId, "수정 회원");
+        createBook(1);
+
+        //then
+        Item item = itemService.findById(itemId);
+        assertEquals(20000, item.getPrice());
+        assertEquals("수정 JPA", item.getName());
+        assertEquals(5, item.getStockQuantity());
+        assertEquals("수정 회원", memberService.findById(memberId).getUsername());
+        assertEquals("상품 추가는 목록 쿼리 캐시를 무효화한다", listed + 1, itemService.findAll().size());
+    }
+
+    private Long createMember() {
+        return transactionTemplate.execute(status -> {
+            Member member = new Member();
+            member.setUsername("회원-" + UUID.randomUUID()); // 커밋되므로 username unique 제약에 걸리지 않게
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            em.persist(member);
+            return member.getId();
+        });
+    }
+
+    private Long createBook(int stockQuantity) {
+        return transactionTemplate.execute(status -> {
+            Book book = new Book();
+            book.setName("캐시 JPA");
+            book.setPrice(10000);
+            book.setStockQuantity(stockQuantity);
+            em.persist(book);
+            return book.getId();
+        });
+    }
+}
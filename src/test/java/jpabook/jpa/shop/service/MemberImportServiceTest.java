@@ -0,0 +1,93 @@
+package jpabook.jpa.shop.service;
+
+import jpabook.jpa.shop.domain.Member;
+import jpabook.jpa.shop.dto.response.MemberImportResultDTO;
+import jpabook.jpa.shop.dto.response.MemberImportResultDTO.Reason;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * chunk 마다 커밋하므로 테스트에 @Transactional 을 붙이지 않는다 (이름은 테스트마다 다르게)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class MemberImportServiceTest {
+
+    @Autowired MemberImportService memberImportService;
+    @Autowired MemberService memberService;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    public void CSV_에서_중복과_빈_이름과_너무_긴_이름은_거절하고_나머지를_등록한다() throws Exception {
+        //given
+        String prefix = UUID.randomUUID() + "-";
+        Member existing = new Member();
+        existing.setUsername(prefix + "kim");
+        memberService.save(existing);
+
+        String csv = "username,city,street,zipcode\r\n" +
+                prefix + "lee,서울,\"강가, 1\",123\r\n" +
+                prefix + "kim,부산,2,456\r\n" +
+                "\r\n" +
+                prefix + "lee,서울,3,789\r\n" +
+                ",대구,4,000\r\n" +
+                prefix + "park,,,\r\n" +
+                prefix + "x".repeat(256) + ",서울,5,111\r\n";
+
+        //when
+        MemberImportResultDTO result = memberImportService.importCsv(stream(csv));
+
+        //then
+        assertEquals(2, result.getCreated());
+        assertEquals(4, result.getRejectedCount());
+        assertEquals(Reason.ALREADY_EXISTS, result.getRejected().get(0).getReason());
+        assertEquals(1, result.getRejected().get(0).getIndex());
+        assertEquals(Reason.DUPLICATE_IN_FILE, result.getRejected().get(1).getReason());
+        assertEquals(Reason.INVALID, result.getRejected().get(2).getReason());
+        assertEquals(Reason.INVALID, result.getRejected().get(3).getReason());
+        assertEquals("따옴표 안의 구분자", "강가, 1",
+                jdbc.queryForObject("select street from member where username = ?", String.class, prefix + "lee"));
+    }
+
+    @Test
+    public void JSON_을_chunk_단위로_등록하고_이후_가입과_id_가_겹치지_않는다() throws Exception {
+        //given
+        String prefix = UUID.randomUUID() + "-";
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 2500; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"username\":\"").append(prefix).append(i).append("\",\"city\":\"서울\"}");
+        }
+        json.append("]");
+
+        //when
+        MemberImportResultDTO result = memberImportService.importJson(stream(json.toString()));
+        Member member = new Member();
+        member.setUsername(prefix + "after");
+        memberService.save(member);
+
+        //then
+        assertEquals(2500, result.getCreated());
+        assertEquals(0, result.getRejectedCount());
+        assertEquals(Integer.valueOf(2501),
+                jdbc.queryForObject("select count(*) from member where username like ?", Integer.class, prefix + "%"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 잘못된_JSON_은_예외() throws Exception {
+        memberImportService.importJson(stream("[{\"username\": "));
+    }
+
+    private ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.fail;
 import static org.junit.Assert.assertEquals;
@@ -65,4 +66,40 @@ public class MemberServiceTest {
         //then
         fail("예외가 발생해야 한다.");
     }
-}
\ No newline at end of file
+
+    @Test(expected = IllegalStateException.class)
+    public void 필터에_없는_중복_이름은_unique_제약이_막는다() throws Exception {
+        //given (다른 서버에서 가입한 경우처럼 필터를 거치지 않고 저장)
+        Member other = new Member();
+        other.setUsername("lee");
+        em.persist(other);
+        em.flush();
+
+        Member member = new Member();
+        member.setUsername("lee");
+
+        //when
+        memberService.save(member);
+
+        //then
+        fail("예외가 발생해야 한다.");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void 이미_있는_이름으로_변경하면_예외() throws Exception {
+        //given
+        String username = "회원-" + UUID.randomUUID();
+        Member member1 = new Member();
+        member1.setUsername(username);
+        Member member2 = new Member();
+        member2.setUsername("회원-" + UUID.randomUUID());
+        memberService.save(member1);
+        memberService.save(member2);
+
+        //when
+        memberService.update(member2.getId(), username);
+
+        //then
+        fail("예외가 발생해야 한다.");
+    }
+}
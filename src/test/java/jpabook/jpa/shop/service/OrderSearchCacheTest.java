@@ -0,0 +1,89 @@
+package jpabook.jpa.shop.service;
+
+import jpabook.jpa.shop.domain.OrderStatus;
+import jpabook.jpa.shop.repository.OrderSearch;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class OrderSearchCacheTest {
+
+    private static final Pageable FIRST = PageRequest.of(0, 20);
+
+    @Test
+    public void 회원명이_비어있으면_같은_검색으로_본다() throws Exception {
+        OrderSearchCache cache = new OrderSearchCache(10, 0);
+        cache.put(search(null, OrderStatus.ORDER), FIRST, cache.generation(), ids(1L, 2L), 1);
+
+        assertEquals(ids(1L, 2L), ids(cache.get(search("", OrderStatus.ORDER), FIRST)));
+        assertEquals(ids(1L, 2L), ids(cache.get(search("  ", OrderStatus.ORDER), FIRST)));
+        assertNull("주문 상태가 다르면 다른 검색", cache.get(search(null, OrderStatus.CANCEL), FIRST));
+    }
+
+    @Test
+    public void 최대_개수를_넘으면_가장_오래_안_쓴_검색부터_버린다() throws Exception {
+        OrderSearchCache cache = new OrderSearchCache(2, 0);
+        cache.put(search("a", null), FIRST, cache.generation(), ids(1L), 1);
+        cache.put(search("b", null), FIRST, cache.generation(), ids(2L), 1);
+        cache.get(search("a", null), FIRST);
+
+        cache.put(search("c", null), FIRST, cache.generation(), ids(3L), 1);
+
+        assertEquals(ids(1L), ids(cache.get(search("a", null), FIRST)));
+        assertNull(cache.get(search("b", null), FIRST));
+        assertEquals(ids(3L), ids(cache.get(search("c", null), FIRST)));
+    }
+
+    @Test
+    public void 검색_도중_비워지면_결과를_넣지_않는다() throws Exception {
+        OrderSearchCache cache = new OrderSearchCache(10, 0);
+        long generation = cache.generation();
+
+        cache.invalidate(); // 검색 쿼리 실행 중에 주문이 커밋됨
+        cache.put(search("a", null), FIRST, generation, ids(1L), 1);
+
+        assertNull(cache.get(search("a", null), FIRST));
+    }
+
+    @Test
+    public void 페이지가_다르면_다른_검색() throws Exception {
+        OrderSearchCache cache = new OrderSearchCache(10, 0);
+        cache.put(search("a", null), FIRST, cache.generation(), ids(1L), 3);
+
+        assertEquals(3, cache.get(search("a", null), FIRST).getTotal());
+        assertNull(cache.get(search("a", null), PageRequest.of(1, 20)));
+        assertNull(cache.get(search("a", null), PageRequest.of(0, 10)));
+    }
+
+    @Test
+    public void 조건_없는_전체_건수는_비워도_ttl_동안_남는다() throws Exception {
+        OrderSearchCache cache = new OrderSearchCache(10, 60_000);
+        cache.putUnfilteredTotal(100);
+
+        cache.invalidate();
+
+        assertEquals(Long.valueOf(100), cache.unfilteredTotal());
+        assertNull("ttl 0 이면 보관하지 않는다", new OrderSearchCache(10, 0).unfilteredTotal());
+    }
+
+    private OrderSearch search(String memberName, OrderStatus orderStatus) {
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName(memberName);
+        orderSearch.setOrderStatus(orderStatus);
+        return orderSearch;
+    }
+
+    private List<Long> ids(Long... ids) {
+        return Arrays.asList(ids);
+    }
+
+    private List<Long> ids(OrderSearchCache.CachedPage page) {
+        return page == null ? null : page.getOrderIds();
+    }
+}
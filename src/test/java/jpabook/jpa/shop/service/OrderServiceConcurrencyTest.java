@@ -0,0 +1,103 @@
+package jpabook.jpa.shop.service;
+
+import jpabook.jpa.shop.domain.Address;
+import jpabook.jpa.shop.domain.Member;
+import jpabook.jpa.shop.domain.item.Book;
+import jpabook.jpa.shop.exception.NotEnoughStockException;
+import jpabook.jpa.shop.repository.ItemRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 같은 상품에 동시 주문 -> 재고 차감이 유실되지 않아야 한다
+ * - 스레드마다 각자 트랜잭션을 커밋해야 하므로 테스트 자체에는 @Transactional 을 붙이지 않는다
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class OrderServiceConcurrencyTest {
+
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired OrderService orderService;
+    @Autowired ItemRepository itemRepository;
+
+    @Test
+    public void 동시_주문시_재고_차감이_유실되지_않는다() throws Exception {
+        //given
+        int stock = 100;
+        int threads = 16;
+        int ordersPerThread = 10; // 총 160 건 주문 -> 100 건만 성공해야 한다
+
+        Long memberId = transactionTemplate.execute(status -> createMember().getId());
+        Long itemId = transactionTemplate.execute(status -> createBook("동시성 JPA", 10000, stock).getId());
+
+        AtomicInteger ordered = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        //when
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ordersPerThread; i++) {
+                    try {
+                        orderService.order(memberId, itemId, 1);
+                        ordered.incrementAndGet();
+                    } catch (NotEnoughStockException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //then
+        int restStock = transactionTemplate.execute(status -> itemRepository.findById(itemId).getStockQuantity());
+        Long orderedCount = transactionTemplate.execute(status -> em.createQuery(
+                "select sum(oi.count) from OrderItem oi where oi.item.id = :itemId", Long.class)
+                .setParameter("itemId", itemId)
+                .getSingleResult());
+
+        assertEquals("재고만큼만 주문이 성공해야 한다", stock, ordered.get());
+        assertEquals("나머지는 재고 부족으로 거절", threads * ordersPerThread - stock, rejected.get());
+        assertEquals("재고는 0 이 되어야 한다", 0, restStock);
+        assertEquals("주문 수량 합계는 처음 재고와 같아야 한다", Long.valueOf(stock), orderedCount);
+    }
+
+    private Book createBook(String name, int price, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        em.persist(book);
+        return book;
+    }
+
+    private Member createMember() {
+        Member member = new Member();
+        member.setUsername("회원-" + UUID.randomUUID()); // 커밋되므로 username unique 제약에 걸리지 않게
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        return member;
+    }
+}
@@ -1,23 +1,40 @@
 package jpabook.jpa.shop.service;
 
 import jpabook.jpa.shop.domain.Address;
+import jpabook.jpa.shop.domain.Delivery;
 import jpabook.jpa.shop.domain.Member;
 import jpabook.jpa.shop.domain.Order;
 import jpabook.jpa.shop.domain.OrderStatus;
 import jpabook.jpa.shop.domain.item.Book;
 import jpabook.jpa.shop.domain.item.Item;
+import jpabook.jpa.shop.dto.request.OrderRequestDTO;
+import jpabook.jpa.shop.dto.response.OrderResultDTO;
 import jpabook.jpa.shop.exception.NotEnoughStockException;
+import jpabook.jpa.shop.member.MemberNameIndex;
+import jpabook.jpa.shop.repository.OrderFetchPlan;
 import jpabook.jpa.shop.repository.OrderRepository;
+import jpabook.jpa.shop.repository.OrderSearch;
+import jpabook.jpa.shop.repository.order.query.OrderListDto;
+import org.hibernate.Session;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 @RunWith(SpringRunner.class)
@@ -28,6 +45,7 @@ public class OrderServiceTest {
     @Autowired EntityManager em;
     @Autowired OrderService orderService;
     @Autowired OrderRepository orderRepository;
+    @Autowired MemberNameIndex memberNameIndex;
 
     @Test
     public void 상품주문() throws Exception {
@@ -83,6 +101,154 @@ public class OrderServiceTest {
         assertEquals("주문이 취소된 상품은 그만큼 재고가 증가해야 한다.", 10, item.getStockQuantity());
     }
 
+    @Test
+    public void 두번_취소해도_재고는_한번만_원복() throws Exception {
+        //given
+        Member member = createMember();
+        Item item = createBook("시골 JPA", 10000, 10);
+        Long orderId = orderService.order(member.getId(), item.getId(), 2);
+        orderService.cancelOrder(orderId);
+
+        //when
+        try {
+            orderService.cancelOrder(orderId);
+            fail("이미 취소된 주문 예외가 발생해야 한다.");
+        } catch (IllegalStateException e) {
+        }
+
+        //then
+        em.flush();
+        em.clear();
+        assertEquals(10, em.find(Item.class, item.getId()).getStockQuantity());
+    }
+
+    @Test
+    public void 일괄주문_줄단위_결과() throws Exception {
+        //given
+        Member member = createMember();
+        Item book1 = createBook("시골 JPA", 10000, 5);
+        Item book2 = createBook("도시 JPA", 20000, 3);
+
+        List<OrderRequestDTO> requests = Arrays.asList(
+                new OrderRequestDTO(member.getId(), book1.getId(), 2),
+                new OrderRequestDTO(member.getId(), book2.getId(), 2),
+                new OrderRequestDTO(member.getId(), book1.getId(), 2),
+                new OrderRequestDTO(member.getId(), book2.getId(), 2), // book2 재고 부족
+                new OrderRequestDTO(-1L, book1.getId(), 1),             // 없는 회원
+                new OrderRequestDTO(member.getId(), book1.getId(), 0)); // 수량 오류
+
+        //when
+        List<OrderResultDTO> results = orderService.orderBatch(requests);
+
+        //then
+        assertEquals(requests.size(), results.size());
+        assertEquals(OrderResultDTO.Status.ORDERED, results.get(0).getStatus());
+        assertEquals(OrderResultDTO.Status.ORDERED, results.get(1).getStatus());
+        assertEquals(OrderResultDTO.Status.ORDERED, results.get(2).getStatus());
+        assertEquals("재고가 부족하면 뒤에 온 줄부터 거절", OrderResultDTO.Status.REJECTED, results.get(3).getStatus());
+        assertEquals(OrderResultDTO.Status.REJECTED, results.get(4).getStatus());
+        assertEquals(OrderResultDTO.Status.REJECTED, results.get(5).getStatus());
+
+        em.flush();
+        em.clear();
+        assertEquals("상품별 합계만큼 재고 차감", 1, em.find(Item.class, book1.getId()).getStockQuantity());
+        assertEquals("들어간 줄만큼만 재고 차감", 1, em.find(Item.class, book2.getId()).getStockQuantity());
+        assertEquals(20000 * 2, orderRepository.findById(results.get(1).getOrderId()).getTotalPrice());
+    }
+
+    @Test
+    public void 주문검색_페이지와_전체건수() throws Exception {
+        //given
+        Member member = createMember();
+        member.setUsername("회원-" + UUID.randomUUID());
+        memberNameIndex.put(member.getId(), member.getUsername()); // 색인은 커밋 후 반영되므로 테스트 트랜잭션 안에서 직접 넣는다
+        Item item = createBook("시골 JPA", 10000, 10);
+
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            orderIds.add(orderService.order(member.getId(), item.getId(), 1));
+        }
+        orderService.cancelOrder(orderIds.get(0));
+        em.flush();
+        em.clear();
+
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName(member.getUsername().substring(3));
+
+        //when
+        Page<Order> first = orderService.searchOrder(orderSearch, PageRequest.of(0, 2), OrderFetchPlan.SUMMARY);
+        Page<Order> last = orderService.searchOrder(orderSearch, PageRequest.of(2, 2), OrderFetchPlan.SUMMARY);
+
+        //then
+        assertEquals(5, first.getTotalElements());
+        assertEquals(3, first.getTotalPages());
+        assertEquals("최근 주문부터", Arrays.asList(orderIds.get(4), orderIds.get(3)), ids(first));
+        assertEquals(Arrays.asList(orderIds.get(0)), ids(last));
+        assertTrue("검색 결과는 read-only (스냅샷 없음)", em.unwrap(Session.class).isReadOnly(first.getContent().get(0)));
+
+        orderSearch.setOrderStatus(OrderStatus.CANCEL);
+        assertEquals("주문 상태 조건도 count 에 들어간다", 1, orderRepository.count(orderSearch));
+    }
+
+    @Test
+    public void 주문목록_화면은_대표상품_컬럼만_조회한다() throws Exception {
+        //given
+        Member member = createMember();
+        member.setUsername("회원-" + UUID.randomUUID());
+        memberNameIndex.put(member.getId(), member.getUsername());
+        Item book1 = createBook("시골 JPA", 10000, 10);
+        Item book2 = createBook("도시 JPA", 20000, 10);
+
+        List<OrderResultDTO> results = orderService.orderBatch(Arrays.asList(
+                new OrderRequestDTO(member.getId(), book1.getId(), 2),
+                new OrderRequestDTO(member.getId(), book2.getId(), 3)));
+        em.flush();
+        em.clear();
+
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName(member.getUsername());
+
+        //when
+        Page<OrderListDto> page = orderService.searchOrderList(orderSearch, PageRequest.of(0, 20));
+
+        //then
+        assertEquals(2, page.getTotalElements());
+        OrderListDto latest = page.getContent().get(0);
+        assertEquals(results.get(1).getOrderId(), latest.getOrderId());
+        assertEquals(member.getUsername(), latest.getUsername());
+        assertEquals("도시 JPA", latest.getItemName());
+        assertEquals(Integer.valueOf(20000), latest.getOrderPrice());
+        assertEquals(Integer.valueOf(3), latest.getCount());
+        assertEquals(OrderStatus.ORDER, latest.getStatus());
+        assertEquals("캐시된 id 로 다시 읽어도 같은 줄", page.getContent(),
+                orderRepository.findListByIds(ids(page.getContent())));
+    }
+
+    @Test
+    public void 주문목록_화면은_주문상품이_없는_주문도_보여준다() throws Exception {
+        //given
+        Order order = Order.createOrder(createMember(), new Delivery());
+        em.persist(order);
+        em.flush();
+        em.clear();
+
+        //when
+        List<OrderListDto> rows = orderRepository.findListByIds(Arrays.asList(order.getId()));
+
+        //then
+        assertEquals(1, rows.size());
+        assertNull(rows.get(0).getItemName());
+        assertNull(rows.get(0).getCount());
+    }
+
+    private List<Long> ids(Page<Order> page) {
+        return page.getContent().stream().map(Order::getId).collect(Collectors.toList());
+    }
+
+    private List<Long> ids(List<OrderListDto> rows) {
+        return rows.stream().map(OrderListDto::getOrderId).collect(Collectors.toList());
+    }
+
     private Item createBook(String name, int price, int stockQuantity) {
         Book book = new Book();
         book.setName(name);
@@ -0,0 +1,117 @@
+package jpabook.jpa.shop.stock;
+
+import jpabook.jpa.shop.catalog.ItemCatalog;
+import jpabook.jpa.shop.domain.item.Book;
+import jpabook.jpa.shop.exception.NotEnoughStockException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * 재고 원장은 자체 트랜잭션으로 DB 에 반영하므로 테스트에 @Transactional 을 붙이지 않는다
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class StockLedgerTest {
+
+    @Rule public TemporaryFolder journalDir = new TemporaryFolder();
+
+    @Autowired EntityManager em;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired ItemCatalog itemCatalog;
+
+    @Test
+    public void 메모리에서_차감하고_flush_때_DB_에_반영한다() throws Exception {
+        //given
+        Long itemId = createBook(10);
+        StockLedger ledger = newLedger();
+
+        //when
+        ledger.decrease(itemId, 3);
+        ledger.decrease(itemId, 4);
+        try {
+            ledger.decrease(itemId, 4);
+            fail("재고 수량 부족 예외가 발생해야 한다.");
+        } catch (NotEnoughStockException e) {
+        }
+
+        //then
+        assertEquals("flush 전에는 DB 재고 그대로", 10, dbStock(itemId));
+        ledger.flush();
+        assertEquals("flush 하면 차감분이 반영된다", 3, dbStock(itemId));
+        ledger.close();
+    }
+
+    @Test
+    public void 반영_전에_죽으면_재시작할_때_저널로_복구한다() throws Exception {
+        //given
+        Long itemId = createBook(10);
+        StockLedger crashed = newLedger();
+        crashed.decrease(itemId, 2);
+        crashed.increase(itemId, 1);
+        crashed.decrease(itemId, 5);
+        // flush 없이 종료
+
+        //when
+        StockLedger restarted = newLedger();
+
+        //then
+        assertEquals("저널의 변경분(-6)이 반영된다", 4, dbStock(itemId));
+        restarted.close();
+        assertEquals("이미 반영한 저널은 다시 반영하지 않는다", 4, dbStock(itemId));
+    }
+
+    @Test
+    public void 트랜잭션이_롤백되면_차감도_원복도_반영하지_않는다() throws Exception {
+        //given
+        Long itemId = createBook(10);
+        StockLedger ledger = newLedger();
+
+        //when
+        transactionTemplate.executeWithoutResult(status -> {
+            ledger.decrease(itemId, 3);
+            ledger.increase(itemId, 5);
+            status.setRollbackOnly();
+        });
+
+        //then
+        ledger.flush();
+        assertEquals(10, dbStock(itemId));
+        ledger.close();
+    }
+
+    private StockLedger newLedger() throws Exception {
+        StockLedger ledger = new StockLedger(jdbc, em.getEntityManagerFactory(), transactionManager, itemCatalog, journalDir.getRoot().toPath(), false);
+        ledger.recover();
+        return ledger;
+    }
+
+    private int dbStock(Long itemId) {
+        return jdbc.queryForObject("select stock_quantity from item where item_id = ?", Integer.class, itemId);
+    }
+
+    private Long createBook(int stockQuantity) {
+        return transactionTemplate.execute(status -> {
+            Book book = new Book();
+            book.setName("원장 JPA");
+            book.setPrice(10000);
+            book.setStockQuantity(stockQuantity);
+            em.persist(book);
+            return book.getId();
+        });
+    }
+}